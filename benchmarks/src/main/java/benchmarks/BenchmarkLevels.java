@@ -0,0 +1,90 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import engine.core.MarioForwardModel;
+import engine.core.MarioWorld;
+import engine.helper.MarioActions;
+
+/**
+ * Loads the level corpora used by the benchmarks and builds the worlds they run on.
+ * The levels folder is taken from the "mario.levels" system property, otherwise "levels/"
+ * or "../levels/" is used depending on where the benchmarks are started from.
+ */
+public class BenchmarkLevels {
+    /**
+     * seed for every random choice in the benchmarks so two runs measure the same work
+     */
+    public static final long SEED = 42;
+
+    public static File getLevelsFolder() {
+        String property = System.getProperty("mario.levels");
+        if (property != null) {
+            return new File(property);
+        }
+        File folder = new File("levels");
+        if (!folder.isDirectory()) {
+            folder = new File("../levels");
+        }
+        return folder;
+    }
+
+    /**
+     * Read all the levels of a corpus sorted by file name
+     *
+     * @param corpus the name of the folder inside levels/ (for example "original" or "notch")
+     * @return the text of every level in the corpus
+     * @throws IOException if the corpus can't be read
+     */
+    public static String[] load(String corpus) throws IOException {
+        File[] files = new File(getLevelsFolder(), corpus).listFiles();
+        if (files == null) {
+            throw new IOException("Can't find the level corpus " + corpus + " in " + getLevelsFolder().getAbsolutePath());
+        }
+        Arrays.sort(files);
+        ArrayList<String> levels = new ArrayList<>();
+        for (File file : files) {
+            if (!file.isDirectory()) {
+                levels.add(new String(Files.readAllBytes(file.toPath())));
+            }
+        }
+        return levels.toArray(new String[0]);
+    }
+
+    /**
+     * Create a headless world that is ready to be updated, the same way MarioGame starts a game
+     *
+     * @param level the level text
+     * @return a world after its first update
+     */
+    public static MarioWorld createWorld(String level) {
+        MarioWorld world = new MarioWorld(null);
+        world.visuals = false;
+        world.initializeLevel(level, 0);
+        world.update(new boolean[MarioActions.numberOfActions()]);
+        return world;
+    }
+
+    public static MarioForwardModel createModel(String level) {
+        return new MarioForwardModel(createWorld(level));
+    }
+
+    /**
+     * A fixed pattern of actions that keeps mario running right and jumping, it is used to drive
+     * the worlds forward so every benchmark run simulates the same ticks.
+     *
+     * @param tick the current tick
+     * @return the button states for that tick
+     */
+    public static boolean[] getAction(int tick) {
+        boolean[] action = new boolean[MarioActions.numberOfActions()];
+        action[MarioActions.RIGHT.getValue()] = true;
+        action[MarioActions.SPEED.getValue()] = tick % 40 < 30;
+        action[MarioActions.JUMP.getValue()] = tick % 24 < 10;
+        return action;
+    }
+}
@@ -0,0 +1,160 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import engine.core.MarioArrayWorld;
+import engine.core.MarioForwardModel;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * Clones per second and advances per second of the forward model the agents use for search.
+ * The models are taken from every level after a fixed number of ticks so there are enemies on screen.
+ * restoreAndRollout does the same rollouts as cloneAndRollout on one model per level that is rewound
+ * with restoreState instead of cloned.
+ * The ArrayWorld benchmarks do the same with the MarioArrayWorld copies of those models.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ForwardModelBenchmark {
+    @Param({"original", "notch"})
+    public String corpus;
+
+    @Param({"100"})
+    public int startTick;
+
+    private MarioForwardModel[] models;
+    private MarioForwardModel current;
+    private MarioForwardModel[] savedModels;
+    private MarioArrayWorld[] arrayWorlds;
+    private MarioArrayWorld currentArrayWorld;
+    private boolean[][] actions;
+    private int[] actionMasks;
+    private int modelIndex;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void loadLevels() throws IOException {
+        String[] levels = BenchmarkLevels.load(this.corpus);
+        this.models = new MarioForwardModel[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            MarioForwardModel model = BenchmarkLevels.createModel(levels[i]);
+            for (int t = 0; t < this.startTick && model.getGameStatus() == GameStatus.RUNNING; t++) {
+                model.advance(BenchmarkLevels.getAction(t));
+            }
+            this.models[i] = model;
+        }
+        this.savedModels = new MarioForwardModel[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            this.savedModels[i] = this.models[i].clone();
+            this.savedModels[i].saveState();
+        }
+        this.arrayWorlds = new MarioArrayWorld[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            this.arrayWorlds[i] = this.models[i].toArrayWorld();
+        }
+        this.actions = new boolean[240][];
+        this.actionMasks = new int[this.actions.length];
+        for (int i = 0; i < this.actions.length; i++) {
+            this.actions[i] = BenchmarkLevels.getAction(this.startTick + i);
+            this.actionMasks[i] = MarioActions.pack(this.actions[i]);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+        this.modelIndex = 0;
+        this.tick = 0;
+        this.current = this.models[0].clone();
+        this.currentArrayWorld = this.arrayWorlds[0].clone();
+    }
+
+    @Benchmark
+    public MarioForwardModel cloneModel() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].clone();
+    }
+
+    @Benchmark
+    public MarioForwardModel advance() {
+        if (this.current.getGameStatus() != GameStatus.RUNNING || this.tick >= this.actions.length) {
+            this.modelIndex = (this.modelIndex + 1) % this.models.length;
+            this.current = this.models[this.modelIndex].clone();
+            this.tick = 0;
+        }
+        this.current.advance(this.actions[this.tick]);
+        this.tick += 1;
+        return this.current;
+    }
+
+    @Benchmark
+    public MarioForwardModel advancePacked() {
+        if (this.current.getGameStatus() != GameStatus.RUNNING || this.tick >= this.actionMasks.length) {
+            this.modelIndex = (this.modelIndex + 1) % this.models.length;
+            this.current = this.models[this.modelIndex].clone();
+            this.tick = 0;
+        }
+        this.current.advance(this.actionMasks[this.tick]);
+        this.tick += 1;
+        return this.current;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public MarioForwardModel cloneAndRollout() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        MarioForwardModel model = this.models[this.modelIndex].clone();
+        for (int i = 0; i < 20; i++) {
+            model.advance(this.actions[i]);
+        }
+        return model;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public MarioForwardModel restoreAndRollout() {
+        this.modelIndex = (this.modelIndex + 1) % this.savedModels.length;
+        MarioForwardModel model = this.savedModels[this.modelIndex];
+        model.restoreState(0);
+        for (int i = 0; i < 20; i++) {
+            model.advance(this.actions[i]);
+        }
+        return model;
+    }
+
+    @Benchmark
+    public MarioArrayWorld cloneArrayWorld() {
+        this.modelIndex = (this.modelIndex + 1) % this.arrayWorlds.length;
+        return this.arrayWorlds[this.modelIndex].clone();
+    }
+
+    @Benchmark
+    public MarioArrayWorld advanceArrayWorld() {
+        if (this.currentArrayWorld.getGameStatus() != GameStatus.RUNNING || this.tick >= this.actionMasks.length) {
+            this.modelIndex = (this.modelIndex + 1) % this.arrayWorlds.length;
+            this.currentArrayWorld = this.arrayWorlds[this.modelIndex].clone();
+            this.tick = 0;
+        }
+        this.currentArrayWorld.advance(this.actionMasks[this.tick]);
+        this.tick += 1;
+        return this.currentArrayWorld;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public MarioArrayWorld cloneAndRolloutArrayWorld() {
+        this.modelIndex = (this.modelIndex + 1) % this.arrayWorlds.length;
+        MarioArrayWorld world = this.arrayWorlds[this.modelIndex].clone();
+        for (int i = 0; i < 20; i++) {
+            world.advance(this.actionMasks[i]);
+        }
+        return world;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import engine.core.MarioLevel;
+
+/**
+ * Levels parsed per second when building a MarioLevel from its text representation or its binary representation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LevelParseBenchmark {
+    @Param({"original", "notch"})
+    public String corpus;
+
+    private String[] levels;
+    private ByteBuffer[] binaryLevels;
+    private int levelIndex;
+
+    @Setup(Level.Trial)
+    public void loadLevels() throws IOException {
+        this.levels = BenchmarkLevels.load(this.corpus);
+        this.binaryLevels = new ByteBuffer[this.levels.length];
+        for (int i = 0; i < this.levels.length; i++) {
+            MarioLevel level = new MarioLevel(this.levels[i], false);
+            this.binaryLevels[i] = ByteBuffer.allocate(level.getBinarySize());
+            level.writeBinary(this.binaryLevels[i]);
+        }
+    }
+
+    @Benchmark
+    public MarioLevel parse() {
+        this.levelIndex = (this.levelIndex + 1) % this.levels.length;
+        return new MarioLevel(this.levels[this.levelIndex], false);
+    }
+
+    @Benchmark
+    public MarioLevel readBinary() {
+        this.levelIndex = (this.levelIndex + 1) % this.binaryLevels.length;
+        return MarioLevel.readBinary(this.binaryLevels[this.levelIndex].duplicate().flip(), false);
+    }
+}
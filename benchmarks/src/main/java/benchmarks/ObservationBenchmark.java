@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import engine.core.MarioForwardModel;
+import engine.helper.GameStatus;
+
+/**
+ * Observations extracted per second from the forward model, at the detail levels the shipped agents use.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ObservationBenchmark {
+    @Param({"original", "notch"})
+    public String corpus;
+
+    @Param({"0", "1", "2"})
+    public int detail;
+
+    private MarioForwardModel[] models;
+    private int modelIndex;
+    private int[] buffer;
+
+    @Setup(Level.Trial)
+    public void loadLevels() throws IOException {
+        String[] levels = BenchmarkLevels.load(this.corpus);
+        this.models = new MarioForwardModel[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            MarioForwardModel model = BenchmarkLevels.createModel(levels[i]);
+            for (int t = 0; t < 100 && model.getGameStatus() == GameStatus.RUNNING; t++) {
+                model.advance(BenchmarkLevels.getAction(t));
+            }
+            this.models[i] = model;
+        }
+        this.buffer = this.models[0].createObservationBuffer();
+    }
+
+    @Benchmark
+    public int[][] completeObservation() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioCompleteObservation(this.detail, this.detail);
+    }
+
+    @Benchmark
+    public int[][] sceneObservation() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioSceneObservation(this.detail);
+    }
+
+    @Benchmark
+    public int[][] enemiesObservation() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioEnemiesObservation(this.detail);
+    }
+
+    @Benchmark
+    public int[] completeObservationBuffer() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioCompleteObservation(this.detail, this.detail, this.buffer);
+    }
+
+    @Benchmark
+    public int[] sceneObservationBuffer() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioSceneObservation(this.detail, this.buffer);
+    }
+
+    @Benchmark
+    public int[] enemiesObservationBuffer() {
+        this.modelIndex = (this.modelIndex + 1) % this.models.length;
+        return this.models[this.modelIndex].getMarioEnemiesObservation(this.detail, this.buffer);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import engine.core.MarioLevel;
+import engine.helper.TileFeature;
+
+/**
+ * Compares the list based tile feature lookup against the precomputed bitmask table, and the collision check
+ * done from the features of getBlock against MarioLevel.isBlocking, which reads the collision bitmap of the level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileFeatureBenchmark {
+    private int tile;
+    private MarioLevel level;
+    private int xTile;
+    private int yTile;
+
+    @Setup(Level.Trial)
+    public void loadLevel() throws IOException {
+        this.level = new MarioLevel(BenchmarkLevels.load("original")[0], false);
+    }
+
+    // walks over every tile of the level and one row above and below it
+    private void nextTile() {
+        this.yTile += 1;
+        if (this.yTile > this.level.tileHeight) {
+            this.yTile = -1;
+            this.xTile = (this.xTile + 1) % this.level.tileWidth;
+        }
+    }
+
+    @Benchmark
+    public boolean featureList() {
+        this.tile = (this.tile + 1) & 63;
+        return TileFeature.getTileType(this.tile).contains(TileFeature.BLOCK_ALL);
+    }
+
+    @Benchmark
+    public boolean featureTable() {
+        this.tile = (this.tile + 1) & 63;
+        return TileFeature.isBlockAll(this.tile);
+    }
+
+    @Benchmark
+    public boolean blockingFromFeatures() {
+        this.nextTile();
+        int features = TileFeature.getFeatures(this.level.getBlock(this.xTile, this.yTile));
+        return (features & (TileFeature.BLOCK_ALL.getMask() | TileFeature.BLOCK_LOWER.getMask())) != 0;
+    }
+
+    @Benchmark
+    public boolean blockingFromBitmap() {
+        this.nextTile();
+        return this.level.isBlocking(this.xTile, this.yTile, 0, 1);
+    }
+}
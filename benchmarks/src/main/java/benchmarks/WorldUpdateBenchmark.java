@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import engine.core.MarioPool;
+import engine.core.MarioWorld;
+import engine.helper.GameStatus;
+
+/**
+ * Ticks per second of MarioWorld.update, the world is restarted on the next level whenever a game ends.
+ * A pool capacity of 0 turns off the reuse of events and short lived sprites, compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldUpdateBenchmark {
+    @Param({"original", "notch"})
+    public String corpus;
+
+    @Param({"64", "0"})
+    public int poolCapacity;
+
+    private MarioPool pool;
+
+    private String[] levels;
+    private MarioWorld[] startWorlds;
+    private MarioWorld world;
+    private boolean[][] actions;
+    private int levelIndex;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void loadLevels() throws IOException {
+        this.levels = BenchmarkLevels.load(this.corpus);
+        this.startWorlds = new MarioWorld[this.levels.length];
+        for (int i = 0; i < this.levels.length; i++) {
+            this.startWorlds[i] = BenchmarkLevels.createWorld(this.levels[i]);
+        }
+        this.actions = new boolean[240][];
+        for (int i = 0; i < this.actions.length; i++) {
+            this.actions[i] = BenchmarkLevels.getAction(i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+        this.levelIndex = 0;
+        this.tick = 0;
+        this.pool = new MarioPool(this.poolCapacity);
+        this.world = this.startWorlds[0].clone();
+        this.world.setPool(this.pool);
+    }
+
+    @Benchmark
+    public int update() {
+        if (this.world.gameStatus != GameStatus.RUNNING) {
+            this.levelIndex = (this.levelIndex + 1) % this.startWorlds.length;
+            this.world = this.startWorlds[this.levelIndex].clone();
+            this.world.setPool(this.pool);
+        }
+        this.world.update(this.actions[this.tick % this.actions.length]);
+        this.tick += 1;
+        return this.world.currentTick;
+    }
+}
@@ -23,6 +23,11 @@ public class GenerateLevel {
 
     public static void main(String[] args) {
         MarioLevelGenerator generator = new levelGenerators.SelvaDarveauGenerator.LevelGenerator();
+        // MarioLevelGenerator generator = new levelGenerators.SelvaDarveauGenerator.LevelGenerator("levels/", 3);
+        // levelGenerators.SelvaDarveauGenerator.MarkovTrainer.train(3, "levels/ge/", "levels/notch/").save("markov.bin");
+        // MarioLevelGenerator generator = new levelGenerators.SelvaDarveauGenerator.LevelGenerator(levelGenerators.SelvaDarveauGenerator.MarkovModel.load("markov.bin"));
+        // engine.core.LevelCorpus.build("levels/").write("levels.corpus");
+        // MarioLevelGenerator generator = new levelGenerators.sampler.LevelGenerator(engine.core.LevelCorpus.open("levels.corpus"), "notch", 10);
         String level = generator.getGeneratedLevel(new MarioLevelModel(150, 16), new MarioTimer(5 * 60 * 60 * 1000));
         MarioGame game = new MarioGame();
         printResults(game.playGame(level, 200, 2));
@@ -35,5 +35,12 @@ public class PlayLevel {
         MarioGame game = new MarioGame();
         printResults(game.playGame(getLevel("./levels/original/lvl-1.txt"), 200, 0));
         // printResults(game.runGame(new agents.robinBaumgarten.Agent(), getLevel("./levels/original/lvl-1.txt"), 20, 0, true));
+        // engine.core.MarioBatchRunner batch = new engine.core.MarioBatchRunner();
+        // batch.addFolder("robinBaumgarten", agents.robinBaumgarten.Agent::new, "./levels/original/", 20, 0);
+        // batch.run(job -> printResults(job.getResult()));
+        // engine.core.MarioLevelFile.convertFolder("./levels/", "./levels-bin/");
+        // batch.addFolder("robinBaumgarten", agents.robinBaumgarten.Agent::new, "./levels-bin/original/", 20, 0);
+        // engine.core.MarioReplay.record(getLevel("./levels/original/lvl-1.txt"), 20, 0, result).save("lvl-1.replay");
+        // System.out.println(engine.core.MarioReplay.load("lvl-1.replay").verify());
     }
 }
@@ -0,0 +1,269 @@
+package agents.mcts;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+
+import engine.core.MarioAgent;
+import engine.core.MarioArrayWorld;
+import engine.core.MarioForwardModel;
+import engine.core.MarioTimer;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * Monte Carlo tree search with UCT, nodes are scored on a mix of their best and mean rollouts. Every action of the tree is held for a few ticks, the agent commits to the
+ * chosen action for those ticks and keeps searching from the state they lead to, so the subtree of the chosen
+ * action is reused by the next decision. The tree only stores statistics, the states are simulated again from
+ * the root on headless array worlds for every iteration. Iterations run in parallel on the fork join pool, each
+ * worker adds a virtual loss to the nodes it is simulating so the other workers explore different paths.
+ */
+public class Agent implements MarioAgent {
+    private static final int[] ACTIONS = {
+            MarioActions.pack(MarioActions.RIGHT),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.SPEED),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.JUMP),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.SPEED, MarioActions.JUMP),
+            MarioActions.pack(MarioActions.JUMP),
+            MarioActions.pack(MarioActions.LEFT),
+            MarioActions.pack(MarioActions.LEFT, MarioActions.SPEED),
+            MarioActions.pack(MarioActions.LEFT, MarioActions.JUMP)};
+    // the number of ticks each action of the tree is held
+    private static final int REPEAT = 4;
+    // the number of actions from the root to the end of a rollout
+    private static final int HORIZON = 8;
+    private static final int CAPACITY = 1 << 17;
+    private static final double EXPLORATION = 0.05;
+    // rollouts only pick the first actions, the ones that don't go left
+    private static final int ROLLOUT_ACTIONS = 5;
+    // the weight of the best rollout against the mean of the rollouts of a node
+    private static final double MAX_WEIGHT = 0.25;
+    // the distance mario runs in a tick at full speed
+    private static final float MAX_SPEED = 10.91f;
+
+    private final int threads;
+    private TreeArena tree;
+    private TreeArena spare;
+    private SplittableRandom random;
+    private int plannedAction;
+    private int remainingTicks;
+
+    /**
+     * Create an agent that runs its rollouts on all the available cores
+     */
+    public Agent() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an agent with a fixed number of parallel workers
+     *
+     * @param threads the number of rollouts that run at the same time, 1 searches on the game thread
+     */
+    public Agent(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public void initialize(MarioForwardModel model, MarioTimer timer) {
+        this.tree = new TreeArena(ACTIONS.length, CAPACITY);
+        this.spare = new TreeArena(ACTIONS.length, CAPACITY);
+        this.tree.createRoot();
+        this.random = new SplittableRandom();
+        this.remainingTicks = 0;
+    }
+
+    @Override
+    public boolean[] getActions(MarioForwardModel model, MarioTimer timer) {
+        // the root of the tree is the state at the end of the planned action
+        MarioArrayWorld state = model.toArrayWorld();
+        for (int i = 0; i < this.remainingTicks; i++) {
+            state.advance(ACTIONS[this.plannedAction]);
+        }
+        if (state.getGameStatus() == GameStatus.RUNNING) {
+            this.search(state, timer);
+        }
+        if (this.remainingTicks == 0) {
+            int best = this.getMostVisitedChild();
+            if (best == TreeArena.NONE) {
+                this.plannedAction = 1;
+                this.tree.createRoot();
+            } else {
+                this.plannedAction = this.tree.action[best];
+                this.tree.copySubtree(best, this.spare);
+                TreeArena old = this.tree;
+                this.tree = this.spare;
+                this.spare = old;
+            }
+            this.remainingTicks = REPEAT;
+        }
+        this.remainingTicks -= 1;
+        return MarioActions.unpack(ACTIONS[this.plannedAction]);
+    }
+
+    private void search(MarioArrayWorld state, MarioTimer timer) {
+        if (this.threads == 1) {
+            new Worker(state, this.random.split()).run(timer);
+            return;
+        }
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            // every worker clones its own copy of the root
+            Worker worker = new Worker(state.clone(), this.random.split());
+            tasks.add(ForkJoinTask.adapt(() -> worker.run(timer)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    private int getMostVisitedChild() {
+        int first = this.tree.firstChild[0];
+        if (first == TreeArena.NONE) {
+            return TreeArena.NONE;
+        }
+        int best = TreeArena.NONE;
+        for (int child = first; child < first + ACTIONS.length; child++) {
+            int visits = this.tree.visits[child];
+            if (visits > 0 && (best == TreeArena.NONE || visits > this.tree.visits[best] ||
+                    (visits == this.tree.visits[best] && this.tree.totalValue[child] > this.tree.totalValue[best]))) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String getAgentName() {
+        return "MCTSAgent";
+    }
+
+    private class Worker {
+        private final MarioArrayWorld root;
+        private final SplittableRandom random;
+        private final float startX;
+        private final int startMode;
+        private final int[] path = new int[HORIZON + 1];
+        private final int[] pathActions = new int[HORIZON + 1];
+
+        Worker(MarioArrayWorld root, SplittableRandom random) {
+            this.root = root;
+            this.random = random;
+            this.startX = root.getMarioFloatPos()[0];
+            this.startMode = root.getMarioMode();
+        }
+
+        void run(MarioTimer timer) {
+            while (!timer.expired()) {
+                this.iterate();
+            }
+        }
+
+        private void iterate() {
+            TreeArena tree = Agent.this.tree;
+            int depth;
+            synchronized (tree) {
+                depth = this.select(tree);
+            }
+
+            MarioArrayWorld world = this.root.clone();
+            int end = TreeArena.NONE;
+            for (int d = 1; d <= depth && end == TreeArena.NONE; d++) {
+                for (int i = 0; i < REPEAT; i++) {
+                    world.advance(ACTIONS[this.pathActions[d]]);
+                }
+                if (world.getGameStatus() != GameStatus.RUNNING) {
+                    end = d;
+                }
+            }
+            for (int d = depth; d < HORIZON && end == TreeArena.NONE; d++) {
+                int action = ACTIONS[this.random.nextInt(ROLLOUT_ACTIONS)];
+                for (int i = 0; i < REPEAT; i++) {
+                    world.advance(action);
+                }
+                if (world.getGameStatus() != GameStatus.RUNNING) {
+                    break;
+                }
+            }
+            double value = this.evaluate(world);
+
+            synchronized (tree) {
+                for (int d = 0; d <= depth; d++) {
+                    int node = this.path[d];
+                    tree.virtualLoss[node] -= 1;
+                    tree.visits[node] += 1;
+                    tree.totalValue[node] += value;
+                    tree.maxValue[node] = Math.max(tree.maxValue[node], value);
+                }
+                if (end != TreeArena.NONE) {
+                    tree.terminal[this.path[end]] = true;
+                }
+            }
+        }
+
+        // walks down the tree with UCT and expands the leaf, the path gets a virtual loss until it is backed up
+        private int select(TreeArena tree) {
+            int node = 0;
+            int depth = 0;
+            this.path[0] = node;
+            tree.virtualLoss[node] += 1;
+            while (depth < HORIZON && !tree.terminal[node]) {
+                int first = tree.firstChild[node];
+                if (first == TreeArena.NONE) {
+                    // a new leaf gets a rollout before it is expanded, unless another worker is already on it
+                    if (node != 0 && tree.visits[node] + tree.virtualLoss[node] <= 1) {
+                        break;
+                    }
+                    first = tree.expand(node);
+                    if (first == TreeArena.NONE) {
+                        break;
+                    }
+                }
+                node = this.selectChild(tree, node, first);
+                depth += 1;
+                this.path[depth] = node;
+                this.pathActions[depth] = tree.action[node];
+                tree.virtualLoss[node] += 1;
+            }
+            return depth;
+        }
+
+        private int selectChild(TreeArena tree, int node, int first) {
+            double logVisits = Math.log(Math.max(1, tree.visits[node] + tree.virtualLoss[node]));
+            int best = first;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + tree.actions; child++) {
+                int visits = tree.visits[child] + tree.virtualLoss[child];
+                double score;
+                if (visits == 0) {
+                    // untried actions come first in a random order
+                    score = 1000 + this.random.nextDouble();
+                } else {
+                    // virtual losses count as rollouts that got 0
+                    double mean = tree.totalValue[child] / visits;
+                    score = MAX_WEIGHT * tree.maxValue[child] + (1 - MAX_WEIGHT) * mean +
+                            EXPLORATION * Math.sqrt(logVisits / visits);
+                }
+                if (score > bestScore) {
+                    best = child;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        // 0 for losing, 1 for winning, otherwise the distance mario went right (minus a penalty if he got hurt)
+        private double evaluate(MarioArrayWorld world) {
+            GameStatus status = world.getGameStatus();
+            if (status == GameStatus.WIN) {
+                return 1;
+            }
+            if (status != GameStatus.RUNNING) {
+                return 0;
+            }
+            double value = 0.5 + (world.getMarioFloatPos()[0] - this.startX) / (2 * HORIZON * REPEAT * MAX_SPEED);
+            if (world.getMarioMode() < this.startMode) {
+                value -= 0.25;
+            }
+            return Math.min(1, Math.max(0, value));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package agents.mcts;
+
+/**
+ * The nodes of the search tree kept in flat arrays, a node is only an index. The children of a node are
+ * allocated together, one for each action, so a node only stores the index of its first child. The arena is
+ * not thread safe, the agent locks it while it selects and backs up.
+ */
+public class TreeArena {
+    static final int NONE = -1;
+
+    final int actions;
+    final int[] parent;
+    final int[] firstChild;
+    final byte[] action;
+    final boolean[] terminal;
+    final int[] visits;
+    final int[] virtualLoss;
+    final double[] totalValue;
+    final double[] maxValue;
+    // the source of every node while a subtree is copied into this arena
+    private final int[] sources;
+    private int size;
+
+    /**
+     * Create an empty arena
+     *
+     * @param actions  the number of children of every expanded node
+     * @param capacity the largest number of nodes, expanding stops once it is full
+     */
+    public TreeArena(int actions, int capacity) {
+        this.actions = actions;
+        this.parent = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.action = new byte[capacity];
+        this.terminal = new boolean[capacity];
+        this.visits = new int[capacity];
+        this.virtualLoss = new int[capacity];
+        this.totalValue = new double[capacity];
+        this.maxValue = new double[capacity];
+        this.sources = new int[capacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    private int allocate(int parent, int action) {
+        int node = this.size++;
+        this.parent[node] = parent;
+        this.firstChild[node] = NONE;
+        this.action[node] = (byte) action;
+        this.terminal[node] = false;
+        this.visits[node] = 0;
+        this.virtualLoss[node] = 0;
+        this.totalValue[node] = 0;
+        this.maxValue[node] = 0;
+        return node;
+    }
+
+    /**
+     * Start a new tree with a single node
+     *
+     * @return the root, always 0
+     */
+    public int createRoot() {
+        this.clear();
+        return this.allocate(NONE, 0);
+    }
+
+    /**
+     * Add a child for every action to a leaf
+     *
+     * @param node the leaf
+     * @return the first child or NONE if the arena is full
+     */
+    public int expand(int node) {
+        if (this.size + this.actions > this.parent.length) {
+            return NONE;
+        }
+        int first = this.size;
+        for (int i = 0; i < this.actions; i++) {
+            this.allocate(node, i);
+        }
+        this.firstChild[node] = first;
+        return first;
+    }
+
+    /**
+     * Copy a subtree to another arena, where it becomes the whole tree. Nodes are copied breadth first, so the
+     * children of a node stay next to each other.
+     *
+     * @param node   the root of the subtree
+     * @param target the arena that is cleared and receives the subtree
+     */
+    public void copySubtree(int node, TreeArena target) {
+        target.clear();
+        int root = target.allocate(NONE, 0);
+        this.copyNode(node, target, root);
+        int[] sources = target.sources;
+        sources[0] = node;
+        // target node i is a copy of sources[i]
+        for (int i = 0; i < target.size; i++) {
+            int source = sources[i];
+            if (this.firstChild[source] == NONE || target.size + this.actions > target.parent.length) {
+                target.firstChild[i] = NONE;
+                continue;
+            }
+            int first = target.size;
+            for (int a = 0; a < this.actions; a++) {
+                int child = target.allocate(i, a);
+                sources[child] = this.firstChild[source] + a;
+                this.copyNode(sources[child], target, child);
+            }
+            target.firstChild[i] = first;
+        }
+    }
+
+    private void copyNode(int source, TreeArena target, int node) {
+        target.terminal[node] = this.terminal[source];
+        target.visits[node] = this.visits[source];
+        target.totalValue[node] = this.totalValue[source];
+        target.maxValue[node] = this.maxValue[source];
+    }
+}
@@ -0,0 +1,197 @@
+package agents.rhea;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+
+import engine.core.MarioAgent;
+import engine.core.MarioForwardModel;
+import engine.core.MarioTimer;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * Rolling horizon evolution. The agent evolves a population of action sequences on the forward model until
+ * the timer runs out and plays the first action of the best one. The population is kept for the next tick,
+ * shifted by the action that was played. Every gene is a packed action mask and the whole population is one
+ * int array, so breeding never allocates. The individuals of a generation are scored on worker threads of the
+ * fork join pool, each worker on clones of its own copy of the model.
+ */
+public class Agent implements MarioAgent {
+    // the genes of new sequences and of the end of shifted sequences
+    private static final int[] ACTIONS = {
+            MarioActions.pack(MarioActions.RIGHT),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.SPEED),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.JUMP),
+            MarioActions.pack(MarioActions.RIGHT, MarioActions.SPEED, MarioActions.JUMP),
+            MarioActions.pack(MarioActions.JUMP),
+            MarioActions.pack(MarioActions.LEFT),
+            MarioActions.pack(MarioActions.LEFT, MarioActions.JUMP)};
+    private static final int POPULATION = 12;
+    // the number of ticks of every sequence
+    private static final int LENGTH = 20;
+    private static final double MUTATION = 1.0 / LENGTH;
+    // the fitness of dying or getting hurt, in pixels
+    private static final double LOSE_PENALTY = 10000;
+    private static final double HURT_PENALTY = 200;
+
+    private final int threads;
+    private int[] population;
+    private int[] offspring;
+    private double[] fitness;
+    private double[] offspringFitness;
+    private SplittableRandom random;
+
+    /**
+     * Create an agent that scores its population on all the available cores
+     */
+    public Agent() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an agent with a fixed number of threads
+     *
+     * @param threads the number of sequences that are scored at the same time, 1 scores them on the game thread
+     */
+    public Agent(int threads) {
+        this.threads = Math.max(1, Math.min(threads, POPULATION));
+    }
+
+    @Override
+    public void initialize(MarioForwardModel model, MarioTimer timer) {
+        this.population = new int[POPULATION * LENGTH];
+        this.offspring = new int[POPULATION * LENGTH];
+        this.fitness = new double[POPULATION];
+        this.offspringFitness = new double[POPULATION];
+        this.random = new SplittableRandom();
+        for (int i = 0; i < this.population.length; i++) {
+            this.population[i] = this.randomGene();
+        }
+    }
+
+    private int randomGene() {
+        return ACTIONS[this.random.nextInt(ACTIONS.length)];
+    }
+
+    @Override
+    public boolean[] getActions(MarioForwardModel model, MarioTimer timer) {
+        // the first gene was played on the last tick
+        for (int i = 0; i < POPULATION; i++) {
+            System.arraycopy(this.population, i * LENGTH + 1, this.population, i * LENGTH, LENGTH - 1);
+            this.population[i * LENGTH + LENGTH - 1] = this.randomGene();
+        }
+        MarioForwardModel[] roots = new MarioForwardModel[this.threads];
+        roots[0] = model;
+        for (int i = 1; i < this.threads; i++) {
+            roots[i] = model.clone();
+        }
+
+        this.evaluate(roots, this.population, this.fitness, 0, timer);
+        int best = this.getBest(this.fitness);
+        while (!timer.expired()) {
+            this.breed(best);
+            // the elite keeps its fitness, the generation is only kept if every offspring was scored in time
+            if (!this.evaluate(roots, this.offspring, this.offspringFitness, 1, timer)) {
+                break;
+            }
+            int[] genomes = this.population;
+            this.population = this.offspring;
+            this.offspring = genomes;
+            double[] scores = this.fitness;
+            this.fitness = this.offspringFitness;
+            this.offspringFitness = scores;
+            best = this.getBest(this.fitness);
+        }
+        return MarioActions.unpack(this.population[best * LENGTH]);
+    }
+
+    private int getBest(double[] fitness) {
+        int best = 0;
+        for (int i = 1; i < POPULATION; i++) {
+            if (fitness[i] > fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int tournament() {
+        int first = this.random.nextInt(POPULATION);
+        int second = this.random.nextInt(POPULATION);
+        return this.fitness[first] >= this.fitness[second] ? first : second;
+    }
+
+    // the best sequence goes first unchanged, the others are uniform crossovers of two tournament winners with
+    // a random button flipped in some of their genes
+    private void breed(int best) {
+        System.arraycopy(this.population, best * LENGTH, this.offspring, 0, LENGTH);
+        this.offspringFitness[0] = this.fitness[best];
+        for (int i = 1; i < POPULATION; i++) {
+            int first = this.tournament() * LENGTH;
+            int second = this.tournament() * LENGTH;
+            for (int g = 0; g < LENGTH; g++) {
+                int gene = this.population[(this.random.nextBoolean() ? first : second) + g];
+                if (this.random.nextDouble() < MUTATION) {
+                    gene ^= 1 << this.random.nextInt(MarioActions.numberOfActions());
+                }
+                this.offspring[i * LENGTH + g] = gene;
+            }
+        }
+    }
+
+    // scores the sequences from the first one, returns false if the timer ran out before all of them were scored
+    private boolean evaluate(MarioForwardModel[] roots, int[] genomes, double[] fitness, int first, MarioTimer timer) {
+        if (this.threads == 1) {
+            return evaluate(roots[0], genomes, fitness, first, 1, timer);
+        }
+        ArrayList<ForkJoinTask<Boolean>> tasks = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; i++) {
+            MarioForwardModel root = roots[i];
+            int start = first + i;
+            tasks.add(ForkJoinTask.adapt(() -> evaluate(root, genomes, fitness, start, this.threads, timer)));
+        }
+        boolean complete = true;
+        for (ForkJoinTask<Boolean> task : ForkJoinTask.invokeAll(tasks)) {
+            complete &= task.join();
+        }
+        return complete;
+    }
+
+    private static boolean evaluate(MarioForwardModel root, int[] genomes, double[] fitness, int first, int step,
+                                    MarioTimer timer) {
+        boolean complete = true;
+        for (int i = first; i < POPULATION; i += step) {
+            if (timer.expired()) {
+                fitness[i] = Double.NEGATIVE_INFINITY;
+                complete = false;
+                continue;
+            }
+            MarioForwardModel model = root.clone();
+            for (int g = 0; g < LENGTH && model.getGameStatus() == GameStatus.RUNNING; g++) {
+                model.advance(genomes[i * LENGTH + g]);
+            }
+            fitness[i] = getFitness(root, model);
+        }
+        return complete;
+    }
+
+    // the distance mario went right, winning or dying counts more than any distance
+    private static double getFitness(MarioForwardModel start, MarioForwardModel end) {
+        double value = end.getMarioFloatPos()[0] - start.getMarioFloatPos()[0];
+        if (end.getGameStatus() == GameStatus.WIN) {
+            value += LOSE_PENALTY;
+        } else if (end.getGameStatus() != GameStatus.RUNNING) {
+            value -= LOSE_PENALTY;
+        }
+        if (end.getMarioMode() < start.getMarioMode()) {
+            value -= HURT_PENALTY;
+        }
+        return value;
+    }
+
+    @Override
+    public String getAgentName() {
+        return "RHEAAgent";
+    }
+}
@@ -1,30 +1,104 @@
 package agents.robinBaumgarten;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
 
 import engine.core.MarioForwardModel;
 import engine.core.MarioTimer;
 import engine.helper.GameStatus;
 
 public class AStarTree {
+    private static final int maxRight = 176;
+
     public SearchNode bestPosition;
     public SearchNode furthestPosition;
     float currentSearchStartingMarioXPos;
-    ArrayList<SearchNode> posPool;
-    ArrayList<int[]> visitedStates = new ArrayList<int[]>();
+    OpenSet posPool = new OpenSet();
+    TranspositionTable visitedStates = new TranspositionTable();
     private boolean requireReplanning = false;
 
     private ArrayList<boolean[]> currentActionPlan;
     int ticksBeforeReplanning = 0;
 
+    // the trees that search in parallel, each one gets a part of the first actions, null for a single thread
+    private AStarTree[] workers;
+
+    /**
+     * Create a tree that searches on the calling thread
+     */
+    public AStarTree() {
+        this(1);
+    }
+
+    /**
+     * Create a tree that splits the search between workers of the fork join pool. The first actions are dealt
+     * out to the workers, each worker searches from its own clone of the model with its own open set and visited
+     * states, and the best plans of the workers are merged when the timer runs out.
+     *
+     * @param workers the number of parallel searches, 1 searches on the calling thread
+     */
+    public AStarTree(int workers) {
+        if (workers > 1) {
+            this.workers = new AStarTree[workers];
+            for (int i = 0; i < workers; i++) {
+                this.workers[i] = new AStarTree();
+            }
+        }
+    }
+
     private MarioForwardModel search(MarioTimer timer) {
+        if (workers != null) {
+            searchInParallel(timer);
+            return null;
+        }
+        SearchNode current = expand(timer);
+        if (current == null) {
+            return null;
+        }
+        if (current.sceneSnapshot.getMarioFloatPos()[0] - currentSearchStartingMarioXPos < maxRight
+                && furthestPosition.sceneSnapshot.getMarioFloatPos()[0] > bestPosition.sceneSnapshot.getMarioFloatPos()[0] + 20)
+            // Couldnt plan till end of screen, take furthest
+            bestPosition = furthestPosition;
+
+        return current.sceneSnapshot;
+    }
+
+    private void searchInParallel(MarioTimer timer) {
+        ArrayList<ForkJoinTask<SearchNode>> tasks = new ArrayList<>(workers.length);
+        for (AStarTree worker : workers) {
+            tasks.add(ForkJoinTask.adapt(() -> worker.expand(timer)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        SearchNode current = null;
+        bestPosition = null;
+        furthestPosition = null;
+        for (int i = 0; i < workers.length; i++) {
+            AStarTree worker = workers[i];
+            if (bestPosition == null || worker.bestPosition.getRemainingTime() < bestPosition.getRemainingTime())
+                bestPosition = worker.bestPosition;
+            if (furthestPosition == null || worker.furthestPosition.sceneSnapshot.getMarioFloatPos()[0] >
+                    furthestPosition.sceneSnapshot.getMarioFloatPos()[0])
+                furthestPosition = worker.furthestPosition;
+            SearchNode last = tasks.get(i).join();
+            if (last != null && (current == null || last.sceneSnapshot.getMarioFloatPos()[0] >
+                    current.sceneSnapshot.getMarioFloatPos()[0]))
+                current = last;
+        }
+        if (current != null && current.sceneSnapshot.getMarioFloatPos()[0] - currentSearchStartingMarioXPos < maxRight
+                && furthestPosition.sceneSnapshot.getMarioFloatPos()[0] > bestPosition.sceneSnapshot.getMarioFloatPos()[0] + 20)
+            // no worker could plan till end of screen, take furthest
+            bestPosition = furthestPosition;
+    }
+
+    // expands nodes until the plan reaches the end of the screen or the timer runs out and returns the last one
+    private SearchNode expand(MarioTimer timer) {
         SearchNode current = bestPosition;
         boolean currentGood = false;
-        int maxRight = 176;
         while (posPool.size() != 0
                 && ((bestPosition.sceneSnapshot.getMarioFloatPos()[0] - currentSearchStartingMarioXPos < maxRight) || !currentGood)
-                && timer.getRemainingTime() > 0) {
-            current = pickBestPos(posPool);
+                && !timer.expired()) {
+            current = posPool.poll();
             if (current == null) {
                 return null;
             }
@@ -56,21 +130,33 @@ public class AStarTree {
                     furthestPosition = current;
             }
         }
-        if (current.sceneSnapshot.getMarioFloatPos()[0] - currentSearchStartingMarioXPos < maxRight
-                && furthestPosition.sceneSnapshot.getMarioFloatPos()[0] > bestPosition.sceneSnapshot.getMarioFloatPos()[0] + 20)
-            // Couldnt plan till end of screen, take furthest
-            bestPosition = furthestPosition;
-
-        return current.sceneSnapshot;
+        return current;
     }
 
     private void startSearch(MarioForwardModel model, int repetitions) {
+        if (workers != null) {
+            for (int i = 0; i < workers.length; i++) {
+                workers[i].startSearch(model, repetitions, i, workers.length);
+            }
+            currentSearchStartingMarioXPos = model.getMarioFloatPos()[0];
+            bestPosition = workers[0].bestPosition;
+            furthestPosition = workers[0].furthestPosition;
+            return;
+        }
+        startSearch(model, repetitions, 0, 1);
+    }
+
+    // only keeps the first actions with an index equal to part modulo parts
+    private void startSearch(MarioForwardModel model, int repetitions, int part, int parts) {
         SearchNode startPos = new SearchNode(null, repetitions, null);
         startPos.initializeRoot(model);
 
-        posPool = new ArrayList<SearchNode>();
+        posPool.clear();
         visitedStates.clear();
-        posPool.addAll(startPos.generateChildren());
+        ArrayList<SearchNode> children = startPos.generateChildren();
+        for (int i = part; i < children.size(); i += parts) {
+            posPool.add(children.get(i));
+        }
         currentSearchStartingMarioXPos = model.getMarioFloatPos()[0];
 
         bestPosition = startPos;
@@ -100,20 +186,6 @@ public class AStarTree {
         return actions;
     }
 
-    private SearchNode pickBestPos(ArrayList<SearchNode> posPool) {
-        SearchNode bestPos = null;
-        float bestPosCost = 10000000;
-        for (SearchNode current : posPool) {
-            float currentCost = current.getRemainingTime() + current.timeElapsed * 0.90f; // slightly bias towards furthest positions
-            if (currentCost < bestPosCost) {
-                bestPos = current;
-                bestPosCost = currentCost;
-            }
-        }
-        posPool.remove(bestPos);
-        return bestPos;
-    }
-
     public boolean[] optimise(MarioForwardModel model, MarioTimer timer) {
         int planAhead = 2;
         int stepsPerSearch = 2;
@@ -146,20 +218,10 @@ public class AStarTree {
     }
 
     private void visited(int x, int y, int t) {
-        visitedStates.add(new int[]{x, y, t});
+        visitedStates.add(x, y, t);
     }
 
     private boolean isInVisited(int x, int y, int t) {
-        int timeDiff = 5;
-        int xDiff = 2;
-        int yDiff = 2;
-        for (int[] v : visitedStates) {
-            if (Math.abs(v[0] - x) < xDiff && Math.abs(v[1] - y) < yDiff && Math.abs(v[2] - t) < timeDiff
-                    && t >= v[2]) {
-                return true;
-            }
-        }
-        return false;
+        return visitedStates.isVisited(x, y, t);
     }
-
 }
@@ -11,11 +11,28 @@ import engine.helper.MarioActions;
 public class Agent implements MarioAgent {
     private boolean[] action;
     private AStarTree tree;
+    private final int threads;
+
+    /**
+     * Create an agent that searches on the game thread
+     */
+    public Agent() {
+        this(1);
+    }
+
+    /**
+     * Create an agent that splits its search between threads of the fork join pool
+     *
+     * @param threads the number of parallel searches, 1 searches on the game thread
+     */
+    public Agent(int threads) {
+        this.threads = threads;
+    }
 
     @Override
     public void initialize(MarioForwardModel model, MarioTimer timer) {
         this.action = new boolean[MarioActions.numberOfActions()];
-        this.tree = new AStarTree();
+        this.tree = new AStarTree(this.threads);
     }
 
     @Override
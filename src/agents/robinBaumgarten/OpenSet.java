@@ -0,0 +1,110 @@
+package agents.robinBaumgarten;
+
+import java.util.Arrays;
+
+/**
+ * The open list of the A* search as a binary min-heap on the cost of the nodes. Nodes with the same cost come
+ * out in the order they were added, which is the order the old list scan picked them in. The cost of a node is
+ * computed when it is added, nodes are never changed while they are in the set.
+ */
+public class OpenSet {
+    // nodes that cost this much or more were never picked by the list scan either
+    private static final float MAX_COST = 10000000;
+
+    private SearchNode[] nodes = new SearchNode[256];
+    private float[] costs = new float[256];
+    private long[] orders = new long[256];
+    private int size;
+    private long nextOrder;
+
+    public static float getCost(SearchNode node) {
+        return node.getRemainingTime() + node.timeElapsed * 0.90f; // slightly bias towards furthest positions
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        Arrays.fill(this.nodes, 0, this.size, null);
+        this.size = 0;
+    }
+
+    // NaN costs go last, like the list scan that never picked them
+    private boolean isBefore(int i, int j) {
+        float a = this.costs[i];
+        float b = this.costs[j];
+        if (a < b || (b != b && a == a)) {
+            return true;
+        }
+        if (a > b || a != a) {
+            return false;
+        }
+        return this.orders[i] < this.orders[j];
+    }
+
+    private void swap(int i, int j) {
+        SearchNode node = this.nodes[i];
+        this.nodes[i] = this.nodes[j];
+        this.nodes[j] = node;
+        float cost = this.costs[i];
+        this.costs[i] = this.costs[j];
+        this.costs[j] = cost;
+        long order = this.orders[i];
+        this.orders[i] = this.orders[j];
+        this.orders[j] = order;
+    }
+
+    public void add(SearchNode node) {
+        if (this.size == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+            this.costs = Arrays.copyOf(this.costs, this.size * 2);
+            this.orders = Arrays.copyOf(this.orders, this.size * 2);
+        }
+        int i = this.size++;
+        this.nodes[i] = node;
+        this.costs[i] = getCost(node);
+        this.orders[i] = this.nextOrder++;
+        while (i > 0 && this.isBefore(i, (i - 1) / 2)) {
+            this.swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    public void addAll(Iterable<SearchNode> nodes) {
+        for (SearchNode node : nodes) {
+            this.add(node);
+        }
+    }
+
+    /**
+     * Remove the cheapest node
+     *
+     * @return the cheapest node or null (and nothing is removed) if every node costs too much
+     */
+    public SearchNode poll() {
+        if (this.size == 0 || !(this.costs[0] < MAX_COST)) {
+            return null;
+        }
+        SearchNode best = this.nodes[0];
+        this.size -= 1;
+        this.swap(0, this.size);
+        this.nodes[this.size] = null;
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= this.size) {
+                break;
+            }
+            if (child + 1 < this.size && this.isBefore(child + 1, child)) {
+                child += 1;
+            }
+            if (!this.isBefore(child, i)) {
+                break;
+            }
+            this.swap(i, child);
+            i = child;
+        }
+        return best;
+    }
+}
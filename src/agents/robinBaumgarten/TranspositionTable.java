@@ -0,0 +1,98 @@
+package agents.robinBaumgarten;
+
+import java.util.Arrays;
+
+/**
+ * The states the A* search already expanded, hashed on their (x, y, time) so checking a new state doesn't scan
+ * all of them. A state counts as visited when a stored state is less than 2 pixels away on both axes and 0 to 4
+ * ticks older, which is looked up as the 45 exact keys around it.
+ */
+public class TranspositionTable {
+    private static final int X_DIFF = 2;
+    private static final int Y_DIFF = 2;
+    private static final int TIME_DIFF = 5;
+    // 0 is the key of (0, 0, 0) so empty slots are marked with the key of (-1, -1, -1), mario is never at x = -1
+    private static final long EMPTY = -1;
+
+    private long[] keys = new long[1024];
+    private int size;
+
+    public TranspositionTable() {
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    // x in 24 bits, y and t in 20 bits, far more than any level needs
+    private static long getKey(int x, int y, int t) {
+        return ((long) (x & 0xFFFFFF) << 40) | ((long) (y & 0xFFFFF) << 20) | (t & 0xFFFFF);
+    }
+
+    private static int getSlot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 40) & mask;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY);
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void add(int x, int y, int t) {
+        if (2 * (this.size + 1) > this.keys.length) {
+            long[] old = this.keys;
+            this.keys = new long[old.length * 2];
+            Arrays.fill(this.keys, EMPTY);
+            this.size = 0;
+            for (long key : old) {
+                if (key != EMPTY) {
+                    this.insert(key);
+                }
+            }
+        }
+        this.insert(getKey(x, y, t));
+    }
+
+    private void insert(long key) {
+        int mask = this.keys.length - 1;
+        int slot = getSlot(key, mask);
+        while (this.keys[slot] != EMPTY) {
+            if (this.keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.keys[slot] = key;
+        this.size += 1;
+    }
+
+    private boolean contains(long key) {
+        int mask = this.keys.length - 1;
+        int slot = getSlot(key, mask);
+        while (this.keys[slot] != EMPTY) {
+            if (this.keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean isVisited(int x, int y, int t) {
+        if (this.size == 0) {
+            return false;
+        }
+        for (int dt = 0; dt < TIME_DIFF; dt++) {
+            for (int dx = 1 - X_DIFF; dx < X_DIFF; dx++) {
+                for (int dy = 1 - Y_DIFF; dy < Y_DIFF; dy++) {
+                    if (this.contains(getKey(x + dx, y + dy, t - dt))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
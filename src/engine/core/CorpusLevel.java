@@ -0,0 +1,126 @@
+package engine.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A view of one level of a LevelCorpus, reading its tiles reads the archive directly
+ */
+public class CorpusLevel {
+    private final LevelCorpus corpus;
+    private final int id;
+
+    CorpusLevel(LevelCorpus corpus, int id) {
+        this.corpus = corpus;
+        this.id = id;
+    }
+
+    /**
+     * Get the position of the level in the whole corpus
+     *
+     * @return the id used by LevelCorpus.get(int)
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    public String getFolder() {
+        return this.corpus.getFolder(this.id);
+    }
+
+    /**
+     * Get the position of the level in its folder
+     *
+     * @return the index used by LevelCorpus.get(String, int)
+     */
+    public int getIndex() {
+        return this.corpus.getFolderIndex(this.id);
+    }
+
+    /**
+     * Get the number of the level file (N in lvl-N.txt)
+     *
+     * @return the level number
+     */
+    public int getNumber() {
+        return this.corpus.getNumber(this.id);
+    }
+
+    /**
+     * Get the path of the level file relative to the corpus folder
+     *
+     * @return a name like "original/lvl-1.txt"
+     */
+    public String getName() {
+        String folder = this.getFolder();
+        return (folder.isEmpty() ? "" : folder + "/") + "lvl-" + this.getNumber() + ".txt";
+    }
+
+    public int getWidth() {
+        return this.corpus.getWidth(this.id);
+    }
+
+    public int getHeight() {
+        return this.corpus.getHeight(this.id);
+    }
+
+    /**
+     * Get the character of a tile in the level
+     *
+     * @param x the x position of the tile between 0 and getWidth() - 1
+     * @param y the y position of the tile between 0 and getHeight() - 1
+     * @return the same character as in the text level
+     */
+    public char getTile(int x, int y) {
+        return this.corpus.getTile(this.id, x, y);
+    }
+
+    /**
+     * Get a range of columns without copying them. The buffer holds getHeight() bytes for each column, one column
+     * after the other, so the tile (x + i, y) is at index i * getHeight() + y.
+     *
+     * @param x     the first column
+     * @param width the number of columns
+     * @return a read only buffer over the archive
+     */
+    public ByteBuffer getColumns(int x, int width) {
+        if (x < 0 || width < 0 || x + width > this.getWidth()) {
+            throw new IndexOutOfBoundsException("Columns " + x + " to " + (x + width) + " are not in the level");
+        }
+        return this.corpus.getColumns(this.id, x, width);
+    }
+
+    /**
+     * Copy a column of the level in a char array
+     *
+     * @param x      the column
+     * @param column an array of at least getHeight() characters
+     * @return the same array
+     */
+    public char[] getColumn(int x, char[] column) {
+        for (int y = 0; y < this.getHeight(); y++) {
+            column[y] = this.getTile(x, y);
+        }
+        return column;
+    }
+
+    /**
+     * Get the level in its text representation, it can be played or parsed with MarioLevel
+     *
+     * @return the rows of the level separated by new lines
+     */
+    public String getText() {
+        StringBuilder result = new StringBuilder((this.getWidth() + 1) * this.getHeight());
+        for (int y = 0; y < this.getHeight(); y++) {
+            for (int x = 0; x < this.getWidth(); x++) {
+                result.append(this.getTile(x, y));
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.getName();
+    }
+}
@@ -0,0 +1,338 @@
+package engine.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A collection of text levels stored in a single archive that is memory mapped once. The levels are kept
+ * column after column, so a range of columns of a level is a contiguous slice of the archive.
+ *
+ * The archive (big endian) starts with a magic number and the number of folders, then for each folder the
+ * length and UTF-8 bytes of its name, its first level and its number of levels. It is followed by the number of
+ * levels and for each level its number (N in lvl-N.txt), width, height and the offset of its tiles. The tiles
+ * of each level are width * height bytes, one column of height bytes after the other.
+ */
+public class LevelCorpus implements Iterable<CorpusLevel> {
+    /**
+     * the first four bytes of an archive ("MLCA")
+     */
+    public static final int MAGIC = 0x4D4C4341;
+
+    private final ByteBuffer data;
+    private final List<String> folders;
+    private final Map<String, Integer> folderIds;
+    private final int[] folderStarts;
+    private final int[] folderSizes;
+    private final int[] numbers;
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] offsets;
+
+    private LevelCorpus(ByteBuffer data) {
+        this.data = data.asReadOnlyBuffer();
+        ByteBuffer header = data.duplicate();
+        header.position(0);
+        if (header.remaining() < 8 || header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("The buffer doesn't contain a level corpus");
+        }
+        int folderCount = header.getInt();
+        this.folders = new ArrayList<>(folderCount);
+        this.folderIds = new HashMap<>();
+        this.folderStarts = new int[folderCount];
+        this.folderSizes = new int[folderCount];
+        for (int i = 0; i < folderCount; i++) {
+            byte[] name = new byte[header.getInt()];
+            header.get(name);
+            this.folders.add(new String(name, StandardCharsets.UTF_8));
+            this.folderIds.put(this.folders.get(i), i);
+            this.folderStarts[i] = header.getInt();
+            this.folderSizes[i] = header.getInt();
+        }
+        int levelCount = header.getInt();
+        this.numbers = new int[levelCount];
+        this.widths = new int[levelCount];
+        this.heights = new int[levelCount];
+        this.offsets = new int[levelCount];
+        for (int i = 0; i < levelCount; i++) {
+            this.numbers[i] = header.getInt();
+            this.widths[i] = header.getInt();
+            this.heights[i] = header.getInt();
+            this.offsets[i] = header.getInt();
+        }
+    }
+
+    /**
+     * Open an archive written by write, the file is memory mapped so no level is read before it is used
+     *
+     * @param archiveFile the path of the archive
+     * @return the corpus stored in the archive
+     * @throws IOException if the file can't be read or isn't an archive
+     */
+    public static LevelCorpus open(String archiveFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(archiveFile), StandardOpenOption.READ)) {
+            return new LevelCorpus(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(archiveFile + " is not a level corpus", e);
+        }
+    }
+
+    /**
+     * Build a corpus in memory from all the text levels (lvl-N.txt) in a folder and its sub folders. Each sub
+     * folder becomes a corpus folder named by its relative path ("" for the levels directly in the folder) and
+     * its levels are sorted by their number.
+     *
+     * @param levelsFolder the folder that contains the levels (for example "levels/")
+     * @return the corpus of all the levels
+     * @throws IOException if one of the levels can't be read
+     */
+    public static LevelCorpus build(String levelsFolder) throws IOException {
+        Path root = Paths.get(levelsFolder);
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).filter(path -> getLevelNumber(path) >= 0)
+                    .collect(Collectors.toList());
+        }
+        files.sort(Comparator.comparing((Path path) -> getFolderName(root, path)).thenComparingInt(LevelCorpus::getLevelNumber));
+
+        List<String> folderNames = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        List<String[]> levels = new ArrayList<>();
+        int tiles = 0;
+        for (int i = 0; i < files.size(); i++) {
+            String folder = getFolderName(root, files.get(i));
+            if (folderNames.isEmpty() || !folderNames.get(folderNames.size() - 1).equals(folder)) {
+                folderNames.add(folder);
+                starts.add(i);
+            }
+            String[] lines = new String(Files.readAllBytes(files.get(i)), StandardCharsets.ISO_8859_1).split("\\r?\\n");
+            levels.add(lines);
+            tiles += lines[0].length() * lines.length;
+        }
+
+        int headerSize = 8 + 4 + 16 * files.size();
+        for (String folder : folderNames) {
+            headerSize += 12 + folder.getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + tiles);
+        buffer.putInt(MAGIC);
+        buffer.putInt(folderNames.size());
+        for (int i = 0; i < folderNames.size(); i++) {
+            byte[] name = folderNames.get(i).getBytes(StandardCharsets.UTF_8);
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : files.size();
+            buffer.putInt(name.length);
+            buffer.put(name);
+            buffer.putInt(starts.get(i));
+            buffer.putInt(end - starts.get(i));
+        }
+        buffer.putInt(files.size());
+        int offset = headerSize;
+        for (int i = 0; i < files.size(); i++) {
+            String[] lines = levels.get(i);
+            buffer.putInt(getLevelNumber(files.get(i)));
+            buffer.putInt(lines[0].length());
+            buffer.putInt(lines.length);
+            buffer.putInt(offset);
+            offset += lines[0].length() * lines.length;
+        }
+        for (String[] lines : levels) {
+            for (int x = 0; x < lines[0].length(); x++) {
+                for (String line : lines) {
+                    // short lines are padded with empty tiles
+                    buffer.put((byte) (x < line.length() ? line.charAt(x) : MarioLevelModel.EMPTY));
+                }
+            }
+        }
+        buffer.flip();
+        return new LevelCorpus(buffer);
+    }
+
+    private static String getFolderName(Path root, Path file) {
+        Path folder = root.relativize(file).getParent();
+        return folder == null ? "" : folder.toString().replace('\\', '/');
+    }
+
+    private static int getLevelNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("lvl-") || !name.endsWith(".txt")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(4, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Write the corpus into an archive that can be opened with open
+     *
+     * @param archiveFile the path of the archive
+     * @throws IOException if the file can't be written
+     */
+    public void write(String archiveFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(archiveFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = this.data.duplicate();
+            buffer.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Get the names of the folders in the corpus
+     *
+     * @return the folder names sorted alphabetically
+     */
+    public List<String> getFolders() {
+        return Collections.unmodifiableList(this.folders);
+    }
+
+    /**
+     * Get the total number of levels
+     *
+     * @return the number of levels in all folders
+     */
+    public int getLevelCount() {
+        return this.numbers.length;
+    }
+
+    /**
+     * Get the number of levels in a folder
+     *
+     * @param folder the name of the folder
+     * @return the number of levels in that folder or 0 if the folder doesn't exist
+     */
+    public int getLevelCount(String folder) {
+        Integer id = this.folderIds.get(folder);
+        return id == null ? 0 : this.folderSizes[id];
+    }
+
+    /**
+     * Get a level by its position in the whole corpus
+     *
+     * @param id the position of the level between 0 and getLevelCount() - 1
+     * @return a view of the level, it doesn't copy any tile
+     */
+    public CorpusLevel get(int id) {
+        if (id < 0 || id >= this.numbers.length) {
+            throw new IndexOutOfBoundsException("Level " + id + " is not in the corpus");
+        }
+        return new CorpusLevel(this, id);
+    }
+
+    /**
+     * Get a level by its position in a folder
+     *
+     * @param folder the name of the folder
+     * @param index  the position of the level in the folder between 0 and getLevelCount(folder) - 1, levels are
+     *               sorted by their number
+     * @return a view of the level, it doesn't copy any tile
+     */
+    public CorpusLevel get(String folder, int index) {
+        Integer id = this.folderIds.get(folder);
+        if (id == null || index < 0 || index >= this.folderSizes[id]) {
+            throw new IndexOutOfBoundsException("Level " + index + " is not in the folder \"" + folder + "\"");
+        }
+        return new CorpusLevel(this, this.folderStarts[id] + index);
+    }
+
+    /**
+     * Get all the levels of a folder
+     *
+     * @param folder the name of the folder
+     * @return the levels of the folder sorted by their number
+     */
+    public List<CorpusLevel> getLevels(String folder) {
+        List<CorpusLevel> result = new ArrayList<>();
+        for (int i = 0; i < this.getLevelCount(folder); i++) {
+            result.add(this.get(folder, i));
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<CorpusLevel> iterator() {
+        return new Iterator<CorpusLevel>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < numbers.length;
+            }
+
+            @Override
+            public CorpusLevel next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(this.next++);
+            }
+        };
+    }
+
+    String getFolder(int id) {
+        for (int i = 0; i < this.folderStarts.length; i++) {
+            if (id >= this.folderStarts[i] && id < this.folderStarts[i] + this.folderSizes[i]) {
+                return this.folders.get(i);
+            }
+        }
+        return null;
+    }
+
+    int getFolderIndex(int id) {
+        String folder = this.getFolder(id);
+        return id - this.folderStarts[this.folderIds.get(folder)];
+    }
+
+    int getNumber(int id) {
+        return this.numbers[id];
+    }
+
+    int getWidth(int id) {
+        return this.widths[id];
+    }
+
+    int getHeight(int id) {
+        return this.heights[id];
+    }
+
+    char getTile(int id, int x, int y) {
+        return (char) (this.data.get(this.offsets[id] + x * this.heights[id] + y) & 0xFF);
+    }
+
+    ByteBuffer getColumns(int id, int x, int width) {
+        return this.data.slice(this.offsets[id] + x * this.heights[id], width * this.heights[id]);
+    }
+
+    /**
+     * Build the archive of a levels folder
+     *
+     * @param args the levels folder (default "levels/") and the archive file (default "levels.corpus")
+     * @throws IOException if the levels can't be read or the archive can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        String levelsFolder = args.length > 0 ? args[0] : "levels/";
+        String archiveFile = args.length > 1 ? args[1] : "levels.corpus";
+        LevelCorpus corpus = LevelCorpus.build(levelsFolder);
+        corpus.write(archiveFile);
+        System.out.println("Wrote " + corpus.getLevelCount() + " levels from " + levelsFolder + " to " + archiveFile);
+    }
+}
@@ -1,7 +1,9 @@
 package engine.core;
 
+import engine.helper.MarioActions;
+
 public class MarioAgentEvent {
-    private boolean[] actions;
+    private int actions;
     private float marioX;
     private float marioY;
     private int marioState;
@@ -9,6 +11,10 @@ public class MarioAgentEvent {
     private int time;
 
     public MarioAgentEvent(boolean[] actions, float marioX, float marioY, int marioState, boolean marioOnGround, int time) {
+        this(MarioActions.pack(actions), marioX, marioY, marioState, marioOnGround, time);
+    }
+
+    public MarioAgentEvent(int actions, float marioX, float marioY, int marioState, boolean marioOnGround, int time) {
         this.actions = actions;
         this.marioX = marioX;
         this.marioY = marioY;
@@ -18,6 +24,15 @@ public class MarioAgentEvent {
     }
 
     public boolean[] getActions() {
+        return MarioActions.unpack(this.actions);
+    }
+
+    /**
+     * Get the pressed buttons without allocating an array
+     *
+     * @return the actions packed with MarioActions.pack
+     */
+    public int getActionMask() {
         return this.actions;
     }
 
@@ -0,0 +1,200 @@
+package engine.core;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long an agent took to decide and how much it simulated during a game. MarioGame measures every call to
+ * MarioAgent.initialize and getActions with System.nanoTime and the forward models it gives to the agent (and all
+ * their clones and array worlds) count their clones and advances here, the counters can be updated from many
+ * search threads.
+ */
+public class MarioAgentMetrics {
+    /**
+     * the columns of toCsv
+     */
+    public static final String CSV_HEADER = "agent,level,decisions,init_ms,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms," +
+            "max_ms,overruns,clones,advances,mean_clones,max_clones,mean_advances,max_advances";
+
+    private final long budgetNanos;
+    private final MarioLatencyHistogram decisionTimes = new MarioLatencyHistogram();
+    private final LongAdder clones = new LongAdder();
+    private final LongAdder advances = new LongAdder();
+    private long initializationTime;
+    private int overruns;
+    private long decisionClones;
+    private long decisionAdvances;
+    private long lastClones;
+    private long lastAdvances;
+    private long maxDecisionClones;
+    private long maxDecisionAdvances;
+
+    /**
+     * Create empty metrics
+     *
+     * @param budget the time in milliseconds a decision can take before it counts as an overrun
+     */
+    public MarioAgentMetrics(long budget) {
+        this.budgetNanos = budget * 1000000L;
+    }
+
+    void countClone() {
+        this.clones.increment();
+    }
+
+    void countAdvance() {
+        this.advances.increment();
+    }
+
+    void recordInitialization(long nanos) {
+        this.initializationTime = nanos;
+        // the simulation done while initializing isn't part of the first decision
+        this.lastClones = this.clones.sum();
+        this.lastAdvances = this.advances.sum();
+    }
+
+    void recordDecision(long nanos) {
+        this.decisionTimes.record(nanos);
+        if (nanos > this.budgetNanos) {
+            this.overruns += 1;
+        }
+        long clones = this.clones.sum();
+        long advances = this.advances.sum();
+        this.decisionClones += clones - this.lastClones;
+        this.decisionAdvances += advances - this.lastAdvances;
+        this.maxDecisionClones = Math.max(this.maxDecisionClones, clones - this.lastClones);
+        this.maxDecisionAdvances = Math.max(this.maxDecisionAdvances, advances - this.lastAdvances);
+        this.lastClones = clones;
+        this.lastAdvances = advances;
+    }
+
+    /**
+     * Get the time of every call to getActions
+     *
+     * @return the histogram of the decision times in nanoseconds
+     */
+    public MarioLatencyHistogram getDecisionTimes() {
+        return this.decisionTimes;
+    }
+
+    public long getInitializationTime() {
+        return this.initializationTime;
+    }
+
+    public long getNumberOfDecisions() {
+        return this.decisionTimes.getCount();
+    }
+
+    /**
+     * Get the number of decisions that took longer than MarioGame.maxTime plus MarioGame.graceTime
+     *
+     * @return the number of decisions over the budget
+     */
+    public int getOverruns() {
+        return this.overruns;
+    }
+
+    /**
+     * Get the number of forward model clones made by the agent, including the ones made in initialize
+     *
+     * @return the total number of clones
+     */
+    public long getClones() {
+        return this.clones.sum();
+    }
+
+    /**
+     * Get the number of forward model advances made by the agent, including the ones made in initialize
+     *
+     * @return the total number of advances
+     */
+    public long getAdvances() {
+        return this.advances.sum();
+    }
+
+    public long getMaxClonesPerDecision() {
+        return this.maxDecisionClones;
+    }
+
+    public long getMaxAdvancesPerDecision() {
+        return this.maxDecisionAdvances;
+    }
+
+    public double getMeanClonesPerDecision() {
+        return this.getNumberOfDecisions() == 0 ? 0 : (double) this.decisionClones / this.getNumberOfDecisions();
+    }
+
+    public double getMeanAdvancesPerDecision() {
+        return this.getNumberOfDecisions() == 0 ? 0 : (double) this.decisionAdvances / this.getNumberOfDecisions();
+    }
+
+    private static String millis(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000);
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String json(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Write the metrics as a line of CSV with the columns of CSV_HEADER, times are in milliseconds
+     *
+     * @param agent the name of the agent written in the first column
+     * @param level the name of the level written in the second column
+     * @return the line without a new line at the end
+     */
+    public String toCsv(String agent, String level) {
+        MarioLatencyHistogram times = this.decisionTimes;
+        return csv(agent) + "," + csv(level) + "," +
+                times.getCount() + "," + millis(this.initializationTime) + "," + millis(times.getMean()) + "," +
+                millis(times.getValueAtPercentile(50)) + "," + millis(times.getValueAtPercentile(90)) + "," +
+                millis(times.getValueAtPercentile(99)) + "," + millis(times.getValueAtPercentile(99.9)) + "," +
+                millis(times.getMax()) + "," + this.overruns + "," + this.getClones() + "," + this.getAdvances() + "," +
+                String.format(Locale.ROOT, "%.2f", this.getMeanClonesPerDecision()) + "," + this.maxDecisionClones +
+                "," + String.format(Locale.ROOT, "%.2f", this.getMeanAdvancesPerDecision()) + "," +
+                this.maxDecisionAdvances;
+    }
+
+    /**
+     * Write the metrics as a JSON object, with the same values as toCsv and the non empty buckets of the decision
+     * histogram as [highest value in nanoseconds, count] pairs so histograms can be merged later
+     *
+     * @param agent the name of the agent
+     * @param level the name of the level
+     * @return the JSON object on a single line
+     */
+    public String toJson(String agent, String level) {
+        MarioLatencyHistogram times = this.decisionTimes;
+        StringBuilder result = new StringBuilder(256);
+        result.append("{\"agent\":").append(json(agent)).append(",\"level\":").append(json(level))
+                .append(",\"decisions\":").append(times.getCount())
+                .append(",\"init_ms\":").append(millis(this.initializationTime))
+                .append(",\"mean_ms\":").append(millis(times.getMean()))
+                .append(",\"p50_ms\":").append(millis(times.getValueAtPercentile(50)))
+                .append(",\"p90_ms\":").append(millis(times.getValueAtPercentile(90)))
+                .append(",\"p99_ms\":").append(millis(times.getValueAtPercentile(99)))
+                .append(",\"p999_ms\":").append(millis(times.getValueAtPercentile(99.9)))
+                .append(",\"max_ms\":").append(millis(times.getMax()))
+                .append(",\"overruns\":").append(this.overruns)
+                .append(",\"clones\":").append(this.getClones())
+                .append(",\"advances\":").append(this.getAdvances())
+                .append(",\"mean_clones\":").append(String.format(Locale.ROOT, "%.2f", this.getMeanClonesPerDecision()))
+                .append(",\"max_clones\":").append(this.maxDecisionClones)
+                .append(",\"mean_advances\":").append(String.format(Locale.ROOT, "%.2f", this.getMeanAdvancesPerDecision()))
+                .append(",\"max_advances\":").append(this.maxDecisionAdvances)
+                .append(",\"histogram\":[");
+        boolean first = true;
+        for (int i = 0; i < times.getNumberOfBuckets(); i++) {
+            if (times.getBucketCount(i) > 0) {
+                result.append(first ? "[" : ",[").append(times.getBucketHighestValue(i)).append(',')
+                        .append(times.getBucketCount(i)).append(']');
+                first = false;
+            }
+        }
+        return result.append("]}").toString();
+    }
+}
@@ -0,0 +1,1705 @@
+package engine.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import engine.helper.EventType;
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+import engine.helper.SpriteType;
+import engine.helper.TileFeature;
+import engine.sprites.Enemy;
+import engine.sprites.FireFlower;
+import engine.sprites.Fireball;
+import engine.sprites.FlowerEnemy;
+import engine.sprites.LifeMushroom;
+import engine.sprites.Mario;
+import engine.sprites.Mushroom;
+import engine.sprites.Shell;
+
+/**
+ * A headless copy of a MarioWorld that keeps its sprites in parallel primitive arrays instead of sprite objects.
+ * It is updated with the same rules as the classes of engine.sprites, so advancing it gives the same positions,
+ * events and statistics as advancing the world it was copied from, but cloning it is a few System.arraycopy
+ * calls and updating it doesn't allocate. It is meant for agents that simulate a lot of futures.
+ * <p>
+ * The sprites are kept in world order, slot i is the i-th sprite of the world list. Mario has a slot so he is
+ * updated at his place in the list, but his state is kept in fields because he can outlive his slot.
+ */
+public class MarioArrayWorld {
+    private static final SpriteType[] TYPES = SpriteType.values();
+    private static final int MARIO_WIDTH = 4;
+
+    // sprite flags
+    private static final int ALIVE = 1;
+    private static final int ON_GROUND = 2;
+    private static final int WINGED = 4;
+    private static final int REMOVED = 8;
+
+    private GameStatus gameStatus;
+    private int pauseTimer;
+    private int fireballsOnScreen;
+    private int currentTimer;
+    private float cameraX;
+    private float cameraY;
+    private int currentTick;
+    private int coins, lives;
+    private MarioLevel level;
+    private MarioEvent[] killEvents;
+    // where the clones and advances are counted, set for the array worlds of the forward models MarioGame creates
+    MarioAgentMetrics metrics;
+
+    // stats, counted like MarioForwardModel does
+    int fallKill;
+    int stompKill;
+    int fireKill;
+    int shellKill;
+    int mushrooms;
+    int flowers;
+    int breakBlock;
+
+    // the events of the last update: type, parameter and mario state
+    private int[] eventTypes;
+    private int[] eventParams;
+    private int[] eventStates;
+    private int eventCount;
+
+    // mario
+    private float marioX, marioY, marioXa, marioYa;
+    private int marioHeight, marioFacing;
+    private boolean marioAlive, isLarge, isFire;
+    private boolean onGround, wasOnGround, isDucking, canShoot, mayJump;
+    private int actions, jumpTime;
+    private float xJumpSpeed, yJumpSpeed;
+    private int invulnerableTime;
+    private float xJumpStart;
+    private int marioSlot;
+
+    // sprites, slots [0, count) are the world list and slots [count, count + added) were added during the update
+    private int count;
+    private int added;
+    private byte[] type;
+    private float[] x, y, xa, ya;
+    private int[] width, height, facing, flags;
+    // the column of the slot in the world sprite index, it only changes when the world index would move it
+    private int[] column;
+    // the shell type of shells, the life of mushrooms and fire flowers and the wait time of enemy flowers
+    private int[] counter;
+    private float[] yStart;
+    private long[] code;
+    private int columnCount;
+    private int updating;
+
+    private int[] shellsToCheck;
+    private int shellCount;
+    private int[] fireballsToCheck;
+    private int fireballCount;
+
+    /**
+     * Copy the current state of a world, the world itself is not changed
+     *
+     * @param world the world to copy, it must not be in the middle of an update
+     */
+    public MarioArrayWorld(MarioWorld world) {
+        this.gameStatus = world.gameStatus;
+        this.pauseTimer = world.pauseTimer;
+        this.fireballsOnScreen = world.fireballsOnScreen;
+        this.currentTimer = world.currentTimer;
+        this.cameraX = world.cameraX;
+        this.cameraY = world.cameraY;
+        this.currentTick = world.currentTick;
+        this.coins = world.coins;
+        this.lives = world.lives;
+        this.level = world.level.clone();
+        this.killEvents = world.getKillEvents();
+
+        this.eventTypes = new int[Math.max(8, world.lastFrameEvents.size())];
+        this.eventParams = new int[this.eventTypes.length];
+        this.eventStates = new int[this.eventTypes.length];
+        for (MarioEvent event : world.lastFrameEvents) {
+            this.eventTypes[this.eventCount] = event.getEventType();
+            this.eventParams[this.eventCount] = event.getEventParam();
+            this.eventStates[this.eventCount] = event.getMarioState();
+            this.eventCount++;
+        }
+
+        Mario mario = world.mario;
+        this.marioX = mario.x;
+        this.marioY = mario.y;
+        this.marioXa = mario.xa;
+        this.marioYa = mario.ya;
+        this.marioHeight = mario.height;
+        this.marioFacing = mario.facing;
+        this.marioAlive = mario.alive;
+        this.isLarge = mario.isLarge;
+        this.isFire = mario.isFire;
+        this.onGround = mario.onGround;
+        this.wasOnGround = mario.wasOnGround;
+        this.isDucking = mario.isDucking;
+        this.canShoot = mario.canShoot;
+        this.mayJump = mario.mayJump;
+        this.actions = mario.actionMask;
+        this.jumpTime = mario.jumpTime;
+        this.xJumpSpeed = mario.getXJumpSpeed();
+        this.yJumpSpeed = mario.getYJumpSpeed();
+        this.invulnerableTime = mario.getInvulnerableTime();
+        this.xJumpStart = mario.getXJumpStart();
+        this.marioSlot = -1;
+
+        ArrayList<MarioSprite> sprites = world.getSprites();
+        this.allocate(Math.max(16, sprites.size() * 2));
+        for (MarioSprite sprite : sprites) {
+            int i = this.count++;
+            this.type[i] = (byte) sprite.type.ordinal();
+            this.x[i] = sprite.x;
+            this.y[i] = sprite.y;
+            this.xa[i] = sprite.xa;
+            this.ya[i] = sprite.ya;
+            this.width[i] = sprite.width;
+            this.height[i] = sprite.height;
+            this.facing[i] = sprite.facing;
+            this.flags[i] = sprite.alive ? ALIVE : 0;
+            this.code[i] = sprite.initialCode;
+            if (sprite == mario) {
+                this.marioSlot = i;
+            } else if (sprite instanceof FlowerEnemy) {
+                this.yStart[i] = ((FlowerEnemy) sprite).getYStart();
+                this.counter[i] = ((FlowerEnemy) sprite).getWaitTime();
+            } else if (sprite instanceof Enemy) {
+                this.flags[i] |= (((Enemy) sprite).isOnGround() ? ON_GROUND : 0) | (((Enemy) sprite).isWinged() ? WINGED : 0);
+            } else if (sprite instanceof Shell) {
+                this.counter[i] = ((Shell) sprite).getShellType();
+                this.flags[i] |= ((Shell) sprite).isOnGround() ? ON_GROUND : 0;
+            } else if (sprite instanceof Fireball) {
+                this.flags[i] |= ((Fireball) sprite).isOnGround() ? ON_GROUND : 0;
+            } else if (sprite instanceof Mushroom) {
+                this.counter[i] = ((Mushroom) sprite).getLife();
+                this.flags[i] |= ((Mushroom) sprite).isOnGround() ? ON_GROUND : 0;
+            } else if (sprite instanceof LifeMushroom) {
+                this.counter[i] = ((LifeMushroom) sprite).getLife();
+                this.flags[i] |= ((LifeMushroom) sprite).isOnGround() ? ON_GROUND : 0;
+            } else if (sprite instanceof FireFlower) {
+                this.counter[i] = ((FireFlower) sprite).getLife();
+            }
+        }
+        this.columnCount = Math.max(this.level.tileWidth, 0) + 2;
+        for (int i = 0; i < this.count; i++) {
+            this.column[i] = this.getColumn(this.getX(i));
+        }
+        this.updating = -1;
+        this.shellsToCheck = new int[8];
+        this.fireballsToCheck = new int[8];
+    }
+
+    private MarioArrayWorld(MarioArrayWorld world) {
+        this.gameStatus = world.gameStatus;
+        this.pauseTimer = world.pauseTimer;
+        this.fireballsOnScreen = world.fireballsOnScreen;
+        this.currentTimer = world.currentTimer;
+        this.cameraX = world.cameraX;
+        this.cameraY = world.cameraY;
+        this.currentTick = world.currentTick;
+        this.coins = world.coins;
+        this.lives = world.lives;
+        this.level = world.level.clone();
+        this.killEvents = world.killEvents;
+        this.metrics = world.metrics;
+        this.fallKill = world.fallKill;
+        this.stompKill = world.stompKill;
+        this.fireKill = world.fireKill;
+        this.shellKill = world.shellKill;
+        this.mushrooms = world.mushrooms;
+        this.flowers = world.flowers;
+        this.breakBlock = world.breakBlock;
+        // like MarioWorld.clone the copy starts without the events of the last update
+        this.eventTypes = new int[8];
+        this.eventParams = new int[8];
+        this.eventStates = new int[8];
+
+        this.marioX = world.marioX;
+        this.marioY = world.marioY;
+        this.marioXa = world.marioXa;
+        this.marioYa = world.marioYa;
+        this.marioHeight = world.marioHeight;
+        this.marioFacing = world.marioFacing;
+        this.marioAlive = world.marioAlive;
+        this.isLarge = world.isLarge;
+        this.isFire = world.isFire;
+        this.onGround = world.onGround;
+        this.wasOnGround = world.wasOnGround;
+        this.isDucking = world.isDucking;
+        this.canShoot = world.canShoot;
+        this.mayJump = world.mayJump;
+        this.actions = world.actions;
+        this.jumpTime = world.jumpTime;
+        this.xJumpSpeed = world.xJumpSpeed;
+        this.yJumpSpeed = world.yJumpSpeed;
+        this.invulnerableTime = world.invulnerableTime;
+        this.xJumpStart = world.xJumpStart;
+        this.marioSlot = world.marioSlot;
+
+        int n = world.count;
+        this.allocate(world.type.length);
+        this.count = n;
+        System.arraycopy(world.type, 0, this.type, 0, n);
+        System.arraycopy(world.x, 0, this.x, 0, n);
+        System.arraycopy(world.y, 0, this.y, 0, n);
+        System.arraycopy(world.xa, 0, this.xa, 0, n);
+        System.arraycopy(world.ya, 0, this.ya, 0, n);
+        System.arraycopy(world.width, 0, this.width, 0, n);
+        System.arraycopy(world.height, 0, this.height, 0, n);
+        System.arraycopy(world.facing, 0, this.facing, 0, n);
+        System.arraycopy(world.flags, 0, this.flags, 0, n);
+        System.arraycopy(world.column, 0, this.column, 0, n);
+        System.arraycopy(world.counter, 0, this.counter, 0, n);
+        System.arraycopy(world.yStart, 0, this.yStart, 0, n);
+        System.arraycopy(world.code, 0, this.code, 0, n);
+        this.columnCount = world.columnCount;
+        this.updating = -1;
+        this.shellsToCheck = new int[8];
+        this.fireballsToCheck = new int[8];
+    }
+
+    /**
+     * Create a copy of the current state, the copy shares nothing that can change with this world
+     *
+     * @return a copy of this world
+     */
+    public MarioArrayWorld clone() {
+        if (this.metrics != null) {
+            this.metrics.countClone();
+        }
+        return new MarioArrayWorld(this);
+    }
+
+    private void allocate(int capacity) {
+        this.type = new byte[capacity];
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.xa = new float[capacity];
+        this.ya = new float[capacity];
+        this.width = new int[capacity];
+        this.height = new int[capacity];
+        this.facing = new int[capacity];
+        this.flags = new int[capacity];
+        this.column = new int[capacity];
+        this.counter = new int[capacity];
+        this.yStart = new float[capacity];
+        this.code = new long[capacity];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.type.length) {
+            return;
+        }
+        int length = Math.max(capacity, this.type.length * 2);
+        this.type = Arrays.copyOf(this.type, length);
+        this.x = Arrays.copyOf(this.x, length);
+        this.y = Arrays.copyOf(this.y, length);
+        this.xa = Arrays.copyOf(this.xa, length);
+        this.ya = Arrays.copyOf(this.ya, length);
+        this.width = Arrays.copyOf(this.width, length);
+        this.height = Arrays.copyOf(this.height, length);
+        this.facing = Arrays.copyOf(this.facing, length);
+        this.flags = Arrays.copyOf(this.flags, length);
+        this.column = Arrays.copyOf(this.column, length);
+        this.counter = Arrays.copyOf(this.counter, length);
+        this.yStart = Arrays.copyOf(this.yStart, length);
+        this.code = Arrays.copyOf(this.code, length);
+    }
+
+    private void moveSlot(int from, int to) {
+        this.type[to] = this.type[from];
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.xa[to] = this.xa[from];
+        this.ya[to] = this.ya[from];
+        this.width[to] = this.width[from];
+        this.height[to] = this.height[from];
+        this.facing[to] = this.facing[from];
+        this.flags[to] = this.flags[from];
+        this.column[to] = this.column[from];
+        this.counter[to] = this.counter[from];
+        this.yStart[to] = this.yStart[from];
+        this.code[to] = this.code[from];
+    }
+
+    /**
+     * Get the current state of the running game
+     *
+     * @return GameStatus the current state (WIN, LOSE, TIME_OUT, RUNNING)
+     */
+    public GameStatus getGameStatus() {
+        return this.gameStatus;
+    }
+
+    /**
+     * The percentage of distance traversed between mario and the goal
+     *
+     * @return value between 0 to 1 to indicate the percentage of distance traversed
+     */
+    public float getCompletionPercentage() {
+        return this.marioX / (this.level.exitTileX * 16);
+    }
+
+    /**
+     * Get the remaining time before the game timesout
+     *
+     * @return the number of time ticks before timeout each frame removes 30 frames
+     */
+    public int getRemainingTime() {
+        return this.currentTimer;
+    }
+
+    public int getCurrentTick() {
+        return this.currentTick;
+    }
+
+    public float[] getMarioFloatPos() {
+        return new float[]{this.marioX, this.marioY};
+    }
+
+    public float[] getMarioFloatVelocity() {
+        return new float[]{this.marioXa, this.marioYa};
+    }
+
+    public boolean getMarioCanJumpHigher() {
+        return this.jumpTime > 0;
+    }
+
+    /**
+     * Get the current mario mode
+     *
+     * @return the current mario mode (0-small, 1-large, 2-fire)
+     */
+    public int getMarioMode() {
+        int value = 0;
+        if (this.isLarge) {
+            value = 1;
+        }
+        if (this.isFire) {
+            value = 2;
+        }
+        return value;
+    }
+
+    public boolean isMarioOnGround() {
+        return this.onGround;
+    }
+
+    public boolean mayMarioJump() {
+        return this.mayJump;
+    }
+
+    /**
+     * Get a 3x float list that contain the type of enemies, x position, y position
+     *
+     * @return an array of 3 floats that contain the enemy type, x position, y
+     * position for each enemy sprite
+     */
+    public float[] getEnemiesFloatPos() {
+        int enemies = 0;
+        for (int i = 0; i < this.count; i++) {
+            if (isEnemy(this.type[i])) {
+                enemies++;
+            }
+        }
+        float[] enemyPos = new float[enemies * 3];
+        for (int i = 0, j = 0; i < this.count; i++) {
+            if (isEnemy(this.type[i])) {
+                enemyPos[j++] = TYPES[this.type[i]].getValue();
+                enemyPos[j++] = this.x[i];
+                enemyPos[j++] = this.y[i];
+            }
+        }
+        return enemyPos;
+    }
+
+    /**
+     * Get the number of sprites in the world, mario included when he is still in the world
+     *
+     * @return the number of sprites, they are numbered from 0 in the order of the world sprite list
+     */
+    public int getSpriteCount() {
+        return this.count;
+    }
+
+    public SpriteType getSpriteType(int sprite) {
+        return TYPES[this.type[sprite]];
+    }
+
+    public float getSpriteX(int sprite) {
+        return this.getX(sprite);
+    }
+
+    public float getSpriteY(int sprite) {
+        return this.getY(sprite);
+    }
+
+    public float getSpriteXa(int sprite) {
+        return sprite == this.marioSlot ? this.marioXa : this.xa[sprite];
+    }
+
+    public float getSpriteYa(int sprite) {
+        return sprite == this.marioSlot ? this.marioYa : this.ya[sprite];
+    }
+
+    public int getSpriteFacing(int sprite) {
+        return sprite == this.marioSlot ? this.marioFacing : this.facing[sprite];
+    }
+
+    public int getKillsTotal() {
+        return this.fallKill + this.fireKill + this.shellKill + this.stompKill;
+    }
+
+    public int getKillsByFire() {
+        return this.fireKill;
+    }
+
+    public int getKillsByStomp() {
+        return this.stompKill;
+    }
+
+    public int getKillsByShell() {
+        return this.shellKill;
+    }
+
+    public int getKillsByFall() {
+        return this.fallKill;
+    }
+
+    public int getNumLives() {
+        return this.lives;
+    }
+
+    public int getNumCollectedMushrooms() {
+        return this.mushrooms;
+    }
+
+    public int getNumCollectedFireflower() {
+        return this.flowers;
+    }
+
+    public int getNumCollectedCoins() {
+        return this.coins;
+    }
+
+    public int getNumDestroyedBricks() {
+        return this.breakBlock;
+    }
+
+    private int getColumn(float x) {
+        int column = (int) Math.floor(x / 16) + 1;
+        if (column < 0) {
+            return 0;
+        }
+        if (column > this.columnCount - 1) {
+            return this.columnCount - 1;
+        }
+        return column;
+    }
+
+    private float getX(int i) {
+        return i == this.marioSlot ? this.marioX : this.x[i];
+    }
+
+    private float getY(int i) {
+        return i == this.marioSlot ? this.marioY : this.y[i];
+    }
+
+    private static boolean isEnemy(int type) {
+        return type >= SpriteType.GOOMBA.ordinal() && type <= SpriteType.ENEMY_FLOWER.ordinal();
+    }
+
+    private static boolean isWalkingEnemy(int type) {
+        return type >= SpriteType.GOOMBA.ordinal() && type <= SpriteType.SPIKY_WINGED.ordinal();
+    }
+
+    private static boolean isKoopa(int type, boolean green) {
+        if (green) {
+            return type == SpriteType.GREEN_KOOPA.ordinal() || type == SpriteType.GREEN_KOOPA_WINGED.ordinal();
+        }
+        return type == SpriteType.RED_KOOPA.ordinal() || type == SpriteType.RED_KOOPA_WINGED.ordinal();
+    }
+
+    private void addEvent(EventType eventType, int eventParam) {
+        if (this.eventCount == this.eventTypes.length) {
+            this.eventTypes = Arrays.copyOf(this.eventTypes, this.eventCount * 2);
+            this.eventParams = Arrays.copyOf(this.eventParams, this.eventCount * 2);
+            this.eventStates = Arrays.copyOf(this.eventStates, this.eventCount * 2);
+        }
+        int marioState = 0;
+        if (this.isLarge) {
+            marioState = 1;
+        }
+        if (this.isFire) {
+            marioState = 2;
+        }
+        this.eventTypes[this.eventCount] = eventType.getValue();
+        this.eventParams[this.eventCount] = eventParam;
+        this.eventStates[this.eventCount] = marioState;
+        this.eventCount++;
+    }
+
+    private boolean hasEvent(MarioEvent event) {
+        // same test as MarioEvent.equals
+        for (int i = 0; i < this.eventCount; i++) {
+            if (this.eventTypes[i] == event.getEventType() &&
+                    (event.getEventParam() == 0 || event.getEventParam() == this.eventParams[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int addSprite(SpriteType spriteType, float x, float y, int width, int height, int facing, long code) {
+        int i = this.count + this.added;
+        this.ensureCapacity(i + 1);
+        this.type[i] = (byte) spriteType.ordinal();
+        this.x[i] = x;
+        this.y[i] = y;
+        this.xa[i] = 0;
+        this.ya[i] = 0;
+        this.width[i] = width;
+        this.height[i] = height;
+        this.facing[i] = facing;
+        this.flags[i] = ALIVE;
+        this.column[i] = -1;
+        this.counter[i] = 0;
+        this.yStart[i] = 0;
+        this.code[i] = code;
+        this.added++;
+        return i;
+    }
+
+    private void removeSprite(int i) {
+        this.flags[i] = (this.flags[i] & ~ALIVE) | REMOVED;
+        if (i == this.marioSlot) {
+            this.marioAlive = false;
+        }
+    }
+
+    private void setMarioDead() {
+        this.marioAlive = false;
+        if (this.marioSlot >= 0) {
+            this.flags[this.marioSlot] &= ~ALIVE;
+        }
+    }
+
+    private void spawnEnemy(SpriteType spriteType, int xTile, int yTile, int dir, long spriteCode) {
+        int i;
+        if (spriteType == SpriteType.ENEMY_FLOWER) {
+            i = this.addSprite(spriteType, xTile * 16 + 17, yTile * 16 + 18, 2, 12, 1, spriteCode);
+            this.yStart[i] = this.y[i];
+            this.ya[i] = -1;
+            this.y[i] -= 1;
+            for (int j = 0; j < 4; j++) {
+                this.updateFlower(i);
+            }
+        } else {
+            boolean koopa = isKoopa(spriteType.ordinal(), true) || isKoopa(spriteType.ordinal(), false);
+            i = this.addSprite(spriteType, xTile * 16 + 8, yTile * 16 + 15, 4, koopa ? 24 : 12, dir == 0 ? 1 : dir,
+                    spriteCode);
+            if (spriteType.getValue() % 2 == 1) {
+                this.flags[i] |= WINGED;
+            }
+        }
+        this.updateSprite(i);
+    }
+
+    private void addShell(float x, float y, int shellType, long spriteCode) {
+        int i = this.addSprite(SpriteType.SHELL, x, y, 4, 12, 0, spriteCode);
+        this.ya[i] = -5;
+        this.counter[i] = shellType;
+        this.updateSprite(i);
+    }
+
+    private void addBulletBill(float x, float y, int dir) {
+        int i = this.addSprite(SpriteType.BULLET_BILL, x, y, 4, 12, dir, MarioLevel.NO_SPRITE_CODE);
+        this.ya[i] = -5;
+        this.updateSprite(i);
+    }
+
+    private void addFireball(float x, float y, int facing) {
+        int i = this.addSprite(SpriteType.FIREBALL, x, y, 4, 8, facing, MarioLevel.NO_SPRITE_CODE);
+        this.ya[i] = 4;
+        this.updateSprite(i);
+    }
+
+    private void addItem(SpriteType spriteType, int xTile, int yTile) {
+        int i = this.addSprite(spriteType, xTile * 16 + 9, yTile * 16 + 8, 4, 12, 1, MarioLevel.NO_SPRITE_CODE);
+        this.updateSprite(i);
+    }
+
+    /**
+     * Advance the world using the action array
+     *
+     * @param actions a list of all the button states
+     */
+    public void advance(boolean[] actions) {
+        this.advance(MarioActions.pack(actions));
+    }
+
+    /**
+     * Advance the world using a packed action mask, it updates the statistics like MarioForwardModel.advance
+     *
+     * @param actions the pressed buttons packed with MarioActions.pack
+     */
+    public void advance(int actions) {
+        if (this.metrics != null) {
+            this.metrics.countAdvance();
+        }
+        this.update(actions);
+        for (int i = 0; i < this.eventCount; i++) {
+            int eventType = this.eventTypes[i];
+            if (eventType == EventType.FIRE_KILL.getValue()) {
+                this.fireKill += 1;
+            }
+            if (eventType == EventType.STOMP_KILL.getValue()) {
+                this.stompKill += 1;
+            }
+            if (eventType == EventType.FALL_KILL.getValue()) {
+                this.fallKill += 1;
+            }
+            if (eventType == EventType.SHELL_KILL.getValue()) {
+                this.shellKill += 1;
+            }
+            if (eventType == EventType.COLLECT.getValue()) {
+                if (this.eventParams[i] == SpriteType.FIRE_FLOWER.getValue()) {
+                    this.flowers += 1;
+                }
+                if (this.eventParams[i] == SpriteType.MUSHROOM.getValue()) {
+                    this.mushrooms += 1;
+                }
+            }
+            if (eventType == EventType.BUMP.getValue() && this.eventParams[i] == MarioForwardModel.OBS_BRICK
+                    && this.eventStates[i] > 0) {
+                this.breakBlock += 1;
+            }
+        }
+    }
+
+    private void update(int actions) {
+        if (this.gameStatus != GameStatus.RUNNING) {
+            return;
+        }
+        if (this.pauseTimer > 0) {
+            this.pauseTimer -= 1;
+            return;
+        }
+
+        if (this.currentTimer > 0) {
+            this.currentTimer -= 30;
+            if (this.currentTimer <= 0) {
+                this.currentTimer = 0;
+                this.gameStatus = GameStatus.TIME_OUT;
+                this.setMarioDead();
+                return;
+            }
+        }
+        this.currentTick += 1;
+        this.cameraX = this.marioX - MarioGame.width / 2;
+        if (this.cameraX + MarioGame.width > this.level.width) {
+            this.cameraX = this.level.width - MarioGame.width;
+        }
+        if (this.cameraX < 0) {
+            this.cameraX = 0;
+        }
+        this.cameraY = this.marioY - MarioGame.height / 2;
+        if (this.cameraY + MarioGame.height > this.level.height) {
+            this.cameraY = this.level.height - MarioGame.height;
+        }
+        if (this.cameraY < 0) {
+            this.cameraY = 0;
+        }
+        this.eventCount = 0;
+
+        this.fireballsOnScreen = 0;
+        for (int i = 0; i < this.count; i++) {
+            float spriteX = this.getX(i);
+            float spriteY = this.getY(i);
+            if (spriteX < cameraX - 64 || spriteX > cameraX + MarioGame.width + 64 || spriteY > this.level.height + 32) {
+                if (i == this.marioSlot) {
+                    this.lose();
+                }
+                this.removeSprite(i);
+                if (isEnemy(this.type[i]) && spriteY > MarioGame.height + 32) {
+                    this.addEvent(EventType.FALL_KILL, TYPES[this.type[i]].getValue());
+                }
+                continue;
+            }
+            if (this.type[i] == SpriteType.FIREBALL.ordinal()) {
+                this.fireballsOnScreen += 1;
+            }
+        }
+
+        for (int xTile = (int) cameraX / 16 - 1; xTile <= (int) (cameraX + MarioGame.width) / 16 + 1; xTile++) {
+            for (int yTile = (int) cameraY / 16 - 1; yTile <= (int) (cameraY + MarioGame.height) / 16 + 1; yTile++) {
+                int dir = 0;
+                if (xTile * 16 + 8 > this.marioX + 16)
+                    dir = -1;
+                if (xTile * 16 + 8 < this.marioX - 16)
+                    dir = 1;
+
+                SpriteType spriteType = this.level.getSpriteType(xTile, yTile);
+                if (spriteType != SpriteType.NONE) {
+                    long spriteCode = this.level.getSpriteCode(xTile, yTile);
+                    if (!this.containsSpawnCode(spriteCode)) {
+                        if (this.level.getLastSpawnTick(xTile, yTile) != this.currentTick - 1) {
+                            this.spawnEnemy(spriteType, xTile, yTile, dir, spriteCode);
+                        }
+                    }
+                    this.level.setLastSpawnTick(xTile, yTile, this.currentTick);
+                }
+
+                if (dir != 0) {
+                    if (TileFeature.hasFeature(this.level.getBlock(xTile, yTile), TileFeature.SPAWNER)) {
+                        if (this.currentTick % 100 == 0) {
+                            this.addBulletBill(xTile * 16 + 8 + dir * 8, yTile * 16 + 15, dir);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.actions = actions;
+        for (int i = 0; i < this.count; i++) {
+            if ((this.flags[i] & ALIVE) == 0) {
+                continue;
+            }
+            this.updating = i;
+            this.updateSprite(i);
+            this.updating = -1;
+            this.column[i] = this.getColumn(this.getX(i));
+        }
+        for (int i = 0; i < this.count; i++) {
+            if ((this.flags[i] & ALIVE) == 0) {
+                continue;
+            }
+            this.collideCheck(i);
+        }
+        if (this.marioSlot >= 0) {
+            this.column[this.marioSlot] = this.getColumn(this.marioX);
+        }
+
+        for (int s = 0; s < this.shellCount; s++) {
+            int shell = this.shellsToCheck[s];
+            int minColumn = this.getColumn(this.x[shell] - 16);
+            int maxColumn = this.getColumn(this.x[shell] + 16);
+            for (int i = 0; i < this.count; i++) {
+                if (i == shell || i == this.marioSlot || this.column[i] < minColumn || this.column[i] > maxColumn) {
+                    continue;
+                }
+                if ((this.flags[shell] & ALIVE) != 0 && (this.flags[i] & ALIVE) != 0) {
+                    if (this.shellCollideCheck(i, shell)) {
+                        this.removeSprite(i);
+                    }
+                }
+            }
+        }
+        this.shellCount = 0;
+
+        for (int f = 0; f < this.fireballCount; f++) {
+            int fireball = this.fireballsToCheck[f];
+            int minColumn = this.getColumn(this.x[fireball] - 16);
+            int maxColumn = this.getColumn(this.x[fireball] + 16);
+            for (int i = 0; i < this.count; i++) {
+                if (i == fireball || i == this.marioSlot || this.column[i] < minColumn || this.column[i] > maxColumn) {
+                    continue;
+                }
+                if ((this.flags[fireball] & ALIVE) != 0 && (this.flags[i] & ALIVE) != 0) {
+                    if (this.fireballCollideCheck(i, fireball)) {
+                        this.removeSprite(fireball);
+                    }
+                }
+            }
+        }
+        this.fireballCount = 0;
+
+        this.compact();
+
+        //punishing forward model
+        if (this.killEvents != null) {
+            for (MarioEvent k : this.killEvents) {
+                if (this.hasEvent(k)) {
+                    this.lose();
+                }
+            }
+        }
+    }
+
+    private boolean containsSpawnCode(long spriteCode) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.code[i] == spriteCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // drops the removed sprites and puts the added ones in front of the list in the order they were added
+    private void compact() {
+        int total = this.count + this.added;
+        int kept = 0;
+        for (int i = 0; i < this.count; i++) {
+            if ((this.flags[i] & REMOVED) == 0) {
+                if (i != kept) {
+                    this.moveSlot(i, kept);
+                }
+                kept++;
+            }
+        }
+        int front = 0;
+        if (this.added > 0) {
+            this.ensureCapacity(total + this.added);
+            for (int i = this.count; i < total; i++) {
+                if ((this.flags[i] & REMOVED) == 0) {
+                    this.moveSlot(i, total + front);
+                    front++;
+                }
+            }
+            for (int i = kept - 1; i >= 0; i--) {
+                this.moveSlot(i, i + front);
+            }
+            for (int i = 0; i < front; i++) {
+                this.moveSlot(total + i, i);
+            }
+        }
+        this.count = kept + front;
+        this.added = 0;
+        this.marioSlot = -1;
+        for (int i = 0; i < this.count; i++) {
+            if (this.type[i] == SpriteType.MARIO.ordinal()) {
+                this.marioSlot = i;
+            }
+            this.column[i] = this.getColumn(this.getX(i));
+        }
+    }
+
+    private void lose() {
+        this.addEvent(EventType.LOSE, 0);
+        this.gameStatus = GameStatus.LOSE;
+        this.setMarioDead();
+    }
+
+    private void win() {
+        this.addEvent(EventType.WIN, 0);
+        this.gameStatus = GameStatus.WIN;
+    }
+
+    private void bump(int xTile, int yTile, boolean canBreakBricks) {
+        int block = this.level.getBlock(xTile, yTile);
+        int features = TileFeature.getFeatures(block);
+
+        if ((features & TileFeature.BUMPABLE.getMask()) != 0) {
+            this.bumpInto(xTile, yTile - 1);
+            this.addEvent(EventType.BUMP, MarioForwardModel.OBS_QUESTION_BLOCK);
+            this.level.setBlock(xTile, yTile, 14);
+
+            if ((features & TileFeature.SPECIAL.getMask()) != 0) {
+                this.addItem(this.isLarge ? SpriteType.FIRE_FLOWER : SpriteType.MUSHROOM, xTile, yTile);
+            } else if ((features & TileFeature.LIFE.getMask()) != 0) {
+                this.addItem(SpriteType.LIFE_MUSHROOM, xTile, yTile);
+            } else {
+                this.collectCoin();
+            }
+        }
+
+        if ((features & TileFeature.BREAKABLE.getMask()) != 0) {
+            this.bumpInto(xTile, yTile - 1);
+            if (canBreakBricks) {
+                this.addEvent(EventType.BUMP, MarioForwardModel.OBS_BRICK);
+                this.level.setBlock(xTile, yTile, 0);
+            }
+        }
+    }
+
+    private void bumpInto(int xTile, int yTile) {
+        int block = this.level.getBlock(xTile, yTile);
+        if (TileFeature.hasFeature(block, TileFeature.PICKABLE)) {
+            this.addEvent(EventType.COLLECT, block);
+            this.collectCoin();
+            this.level.setBlock(xTile, yTile, 0);
+        }
+
+        int minColumn = this.getColumn(xTile * 16 - 16);
+        int maxColumn = this.getColumn(xTile * 16 + 32);
+        for (int i = 0; i < this.count; i++) {
+            // the sprite that is moving right now might not be in its indexed column yet
+            if (i == this.updating || (this.column[i] >= minColumn && this.column[i] <= maxColumn)) {
+                this.bumpCheck(i, xTile, yTile);
+            }
+        }
+    }
+
+    private void updateSprite(int i) {
+        int spriteType = this.type[i];
+        if (spriteType == SpriteType.MARIO.ordinal()) {
+            this.updateMario();
+        } else if (isWalkingEnemy(spriteType)) {
+            this.updateEnemy(i);
+        } else if (spriteType == SpriteType.ENEMY_FLOWER.ordinal()) {
+            this.updateFlower(i);
+        } else if (spriteType == SpriteType.SHELL.ordinal()) {
+            this.updateShell(i);
+        } else if (spriteType == SpriteType.FIREBALL.ordinal()) {
+            this.updateFireball(i);
+        } else if (spriteType == SpriteType.BULLET_BILL.ordinal()) {
+            this.updateBulletBill(i);
+        } else if (spriteType == SpriteType.MUSHROOM.ordinal() || spriteType == SpriteType.LIFE_MUSHROOM.ordinal()) {
+            this.updateMushroom(i);
+        } else if (spriteType == SpriteType.FIRE_FLOWER.ordinal()) {
+            this.updateFireFlower(i);
+        }
+    }
+
+    private void collideCheck(int i) {
+        int spriteType = this.type[i];
+        if (isEnemy(spriteType) && spriteType != SpriteType.BULLET_BILL.ordinal()) {
+            this.enemyCollideCheck(i);
+        } else if (spriteType == SpriteType.SHELL.ordinal()) {
+            this.shellCollideCheck(i);
+        } else if (spriteType == SpriteType.BULLET_BILL.ordinal()) {
+            this.bulletBillCollideCheck(i);
+        } else if (spriteType == SpriteType.MUSHROOM.ordinal() || spriteType == SpriteType.LIFE_MUSHROOM.ordinal()
+                || spriteType == SpriteType.FIRE_FLOWER.ordinal()) {
+            this.itemCollideCheck(i);
+        }
+    }
+
+    private void bumpCheck(int i, int xTile, int yTile) {
+        int spriteType = this.type[i];
+        if ((this.flags[i] & ALIVE) == 0 || i == this.marioSlot) {
+            return;
+        }
+        boolean walkingEnemy = isEnemy(spriteType) && spriteType != SpriteType.BULLET_BILL.ordinal();
+        boolean bouncing = spriteType == SpriteType.SHELL.ordinal() || spriteType == SpriteType.MUSHROOM.ordinal()
+                || spriteType == SpriteType.LIFE_MUSHROOM.ordinal();
+        if (!walkingEnemy && !bouncing) {
+            return;
+        }
+        if (this.x[i] + this.width[i] > xTile * 16 && this.x[i] - this.width[i] < xTile * 16 + 16
+                && yTile == (int) ((this.y[i] - 1) / 16)) {
+            if (walkingEnemy) {
+                this.xa[i] = -this.marioFacing * 2;
+                this.ya[i] = -5;
+                this.removeSprite(i);
+            } else {
+                this.facing[i] = -this.marioFacing;
+                this.ya[i] = -10;
+            }
+        }
+    }
+
+    private boolean shellCollideCheck(int i, int shell) {
+        int spriteType = this.type[i];
+        if (!isEnemy(spriteType) && spriteType != SpriteType.SHELL.ordinal()) {
+            return false;
+        }
+        float xD = this.x[shell] - this.x[i];
+        float yD = this.y[shell] - this.y[i];
+
+        if (xD > -16 && xD < 16) {
+            if (yD > -this.height[i] && yD < this.height[shell]) {
+                if (spriteType == SpriteType.SHELL.ordinal()) {
+                    this.addEvent(EventType.SHELL_KILL, SpriteType.SHELL.getValue());
+                    if (i != shell) {
+                        this.removeSprite(shell);
+                    }
+                    this.removeSprite(i);
+                    return true;
+                }
+                if (spriteType != SpriteType.BULLET_BILL.ordinal()) {
+                    this.xa[i] = this.facing[shell] * 2;
+                    this.ya[i] = -5;
+                }
+                this.addEvent(EventType.SHELL_KILL, TYPES[spriteType].getValue());
+                this.removeSprite(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fireballCollideCheck(int i, int fireball) {
+        int spriteType = this.type[i];
+        if (!isEnemy(spriteType) && spriteType != SpriteType.SHELL.ordinal()) {
+            return false;
+        }
+        float xD = this.x[fireball] - this.x[i];
+        float yD = this.y[fireball] - this.y[i];
+
+        if (xD > -16 && xD < 16) {
+            if (spriteType == SpriteType.BULLET_BILL.ordinal()) {
+                return yD > -this.height[i] && yD < this.height[fireball];
+            }
+            if (yD > -this.height[i] && yD < this.height[fireball]) {
+                if (spriteType == SpriteType.SHELL.ordinal()) {
+                    if (this.facing[i] != 0)
+                        return true;
+                } else if (spriteType == SpriteType.SPIKY.ordinal() || spriteType == SpriteType.SPIKY_WINGED.ordinal()) {
+                    return true;
+                }
+
+                this.xa[i] = this.facing[fireball] * 2;
+                this.ya[i] = -5;
+                if (spriteType != SpriteType.SHELL.ordinal()) {
+                    this.addEvent(EventType.FIRE_KILL, TYPES[spriteType].getValue());
+                }
+                this.removeSprite(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enemyCollideCheck(int i) {
+        int spriteType = this.type[i];
+        float xMarioD = this.marioX - this.x[i];
+        float yMarioD = this.marioY - this.y[i];
+        int width = this.width[i];
+        if (xMarioD > -width * 2 - 4 && xMarioD < width * 2 + 4) {
+            if (yMarioD > -this.height[i] && yMarioD < this.marioHeight) {
+                if (spriteType != SpriteType.SPIKY.ordinal() && spriteType != SpriteType.SPIKY_WINGED.ordinal()
+                        && spriteType != SpriteType.ENEMY_FLOWER.ordinal() &&
+                        this.marioYa > 0 && yMarioD <= 0 && (!this.onGround || !this.wasOnGround)) {
+                    this.stomp(i);
+                    if ((this.flags[i] & WINGED) != 0) {
+                        this.flags[i] &= ~WINGED;
+                        this.ya[i] = 0;
+                    } else {
+                        if (isKoopa(spriteType, true)) {
+                            this.addShell(this.x[i], this.y[i], 1, this.code[i]);
+                        } else if (isKoopa(spriteType, false)) {
+                            this.addShell(this.x[i], this.y[i], 0, this.code[i]);
+                        }
+                        this.addEvent(EventType.STOMP_KILL, TYPES[spriteType].getValue());
+                        this.removeSprite(i);
+                    }
+                } else {
+                    this.addEvent(EventType.HURT, TYPES[spriteType].getValue());
+                    this.getHurt();
+                }
+            }
+        }
+    }
+
+    private void shellCollideCheck(int i) {
+        float xMarioD = this.marioX - this.x[i];
+        float yMarioD = this.marioY - this.y[i];
+        if (xMarioD > -16 && xMarioD < 16) {
+            if (yMarioD > -this.height[i] && yMarioD < this.marioHeight) {
+                if (this.marioYa > 0 && yMarioD <= 0 && (!this.onGround || !this.wasOnGround)) {
+                    this.stomp(i);
+                    if (this.facing[i] != 0) {
+                        this.xa[i] = 0;
+                        this.facing[i] = 0;
+                    } else {
+                        this.facing[i] = this.marioFacing;
+                    }
+                } else {
+                    if (this.facing[i] != 0) {
+                        this.addEvent(EventType.HURT, SpriteType.SHELL.getValue());
+                        this.getHurt();
+                    } else {
+                        this.addEvent(EventType.KICK, SpriteType.SHELL.getValue());
+                        if (this.marioAlive) {
+                            this.invulnerableTime = 1;
+                        }
+                        this.facing[i] = this.marioFacing;
+                    }
+                }
+            }
+        }
+    }
+
+    private void bulletBillCollideCheck(int i) {
+        float xMarioD = this.marioX - this.x[i];
+        float yMarioD = this.marioY - this.y[i];
+        if (xMarioD > -16 && xMarioD < 16) {
+            if (yMarioD > -this.height[i] && yMarioD < this.marioHeight) {
+                if (this.marioYa > 0 && yMarioD <= 0 && (!this.onGround || !this.wasOnGround)) {
+                    this.stomp(i);
+                    this.removeSprite(i);
+                } else {
+                    this.addEvent(EventType.HURT, SpriteType.BULLET_BILL.getValue());
+                    this.getHurt();
+                }
+            }
+        }
+    }
+
+    private void itemCollideCheck(int i) {
+        int spriteType = this.type[i];
+        float xMarioD = this.marioX - this.x[i];
+        float yMarioD = this.marioY - this.y[i];
+        if (xMarioD > -16 && xMarioD < 16) {
+            if (yMarioD > -this.height[i] && yMarioD < this.marioHeight) {
+                this.addEvent(EventType.COLLECT, TYPES[spriteType].getValue());
+                if (spriteType == SpriteType.MUSHROOM.ordinal()) {
+                    this.getMushroom();
+                } else if (spriteType == SpriteType.FIRE_FLOWER.ordinal()) {
+                    this.getFlower();
+                } else {
+                    this.collect1Up();
+                }
+                this.removeSprite(i);
+            }
+        }
+    }
+
+    private void updateEnemy(int i) {
+        float sideWaysSpeed = 1.75f;
+        boolean winged = (this.flags[i] & WINGED) != 0;
+
+        if (this.xa[i] > 2) {
+            this.facing[i] = 1;
+        }
+        if (this.xa[i] < -2) {
+            this.facing[i] = -1;
+        }
+
+        this.xa[i] = this.facing[i] * sideWaysSpeed;
+
+        if (!this.move(i, this.xa[i], 0))
+            this.facing[i] = -this.facing[i];
+        this.flags[i] &= ~ON_GROUND;
+        this.move(i, 0, this.ya[i]);
+
+        this.ya[i] *= winged ? 0.95f : 0.85f;
+        this.xa[i] *= 0.89f;
+
+        if ((this.flags[i] & ON_GROUND) == 0) {
+            if (winged) {
+                this.ya[i] += 0.6f;
+            } else {
+                this.ya[i] += 2;
+            }
+        } else if (winged) {
+            this.ya[i] = -10;
+        }
+    }
+
+    private void updateFlower(int i) {
+        if (this.ya[i] > 0) {
+            if (this.y[i] >= this.yStart[i]) {
+                this.y[i] = this.yStart[i];
+                int xd = (int) (Math.abs(this.marioX - this.x[i]));
+                this.counter[i]++;
+                if (this.counter[i] > 40 && xd > 24) {
+                    this.counter[i] = 0;
+                    this.ya[i] = -1;
+                }
+            }
+        } else if (this.ya[i] < 0) {
+            if (this.yStart[i] - this.y[i] > 20) {
+                this.y[i] = this.yStart[i] - 20;
+                this.counter[i]++;
+                if (this.counter[i] > 40) {
+                    this.counter[i] = 0;
+                    this.ya[i] = 1;
+                }
+            }
+        }
+        this.y[i] += this.ya[i];
+    }
+
+    private void updateShell(int i) {
+        float sideWaysSpeed = 11f;
+
+        if (this.xa[i] > 2) {
+            this.facing[i] = 1;
+        }
+        if (this.xa[i] < -2) {
+            this.facing[i] = -1;
+        }
+
+        this.xa[i] = this.facing[i] * sideWaysSpeed;
+
+        if (this.facing[i] != 0) {
+            if (this.shellCount == this.shellsToCheck.length) {
+                this.shellsToCheck = Arrays.copyOf(this.shellsToCheck, this.shellCount * 2);
+            }
+            this.shellsToCheck[this.shellCount++] = i;
+        }
+
+        if (!this.move(i, this.xa[i], 0)) {
+            this.facing[i] = -this.facing[i];
+        }
+        this.flags[i] &= ~ON_GROUND;
+        this.move(i, 0, this.ya[i]);
+
+        this.ya[i] *= 0.85f;
+        this.xa[i] *= 0.89f;
+
+        if ((this.flags[i] & ON_GROUND) == 0) {
+            this.ya[i] += 2;
+        }
+    }
+
+    private void updateFireball(int i) {
+        float sideWaysSpeed = 8f;
+        if (this.xa[i] > 2) {
+            this.facing[i] = 1;
+        }
+        if (this.xa[i] < -2) {
+            this.facing[i] = -1;
+        }
+        this.xa[i] = this.facing[i] * sideWaysSpeed;
+
+        if (this.fireballCount == this.fireballsToCheck.length) {
+            this.fireballsToCheck = Arrays.copyOf(this.fireballsToCheck, this.fireballCount * 2);
+        }
+        this.fireballsToCheck[this.fireballCount++] = i;
+
+        if (!this.move(i, this.xa[i], 0)) {
+            this.removeSprite(i);
+            return;
+        }
+
+        this.flags[i] &= ~ON_GROUND;
+        this.move(i, 0, this.ya[i]);
+        boolean onGround = (this.flags[i] & ON_GROUND) != 0;
+        if (onGround)
+            this.ya[i] = -10;
+
+        this.ya[i] *= 0.95f;
+        this.xa[i] *= 0.89f;
+
+        if (!onGround) {
+            this.ya[i] += 1.5;
+        }
+    }
+
+    private void updateBulletBill(int i) {
+        float sideWaysSpeed = 4f;
+        this.xa[i] = this.facing[i] * sideWaysSpeed;
+        this.x[i] += this.xa[i];
+    }
+
+    private void updateMushroom(int i) {
+        if (this.counter[i] < 9) {
+            this.y[i]--;
+            this.counter[i]++;
+            return;
+        }
+        float sideWaysSpeed = 1.75f;
+        if (this.xa[i] > 2) {
+            this.facing[i] = 1;
+        }
+        if (this.xa[i] < -2) {
+            this.facing[i] = -1;
+        }
+        this.xa[i] = this.facing[i] * sideWaysSpeed;
+        if (!this.move(i, this.xa[i], 0))
+            this.facing[i] = -this.facing[i];
+        this.flags[i] &= ~ON_GROUND;
+        this.move(i, 0, this.ya[i]);
+        this.ya[i] *= 0.85f;
+        this.xa[i] *= 0.89f;
+        if ((this.flags[i] & ON_GROUND) == 0) {
+            this.ya[i] += 2;
+        }
+    }
+
+    private void updateFireFlower(int i) {
+        this.counter[i]++;
+        if (this.counter[i] < 9) {
+            this.y[i]--;
+        }
+    }
+
+    // the move of the enemies, shells, fireballs and mushrooms, they only differ in what isBlocking does
+    private boolean move(int i, float xa, float ya) {
+        while (xa > 8) {
+            if (!this.move(i, 8, 0))
+                return false;
+            xa -= 8;
+        }
+        while (xa < -8) {
+            if (!this.move(i, -8, 0))
+                return false;
+            xa += 8;
+        }
+        while (ya > 8) {
+            if (!this.move(i, 0, 8))
+                return false;
+            ya -= 8;
+        }
+        while (ya < -8) {
+            if (!this.move(i, 0, -8))
+                return false;
+            ya += 8;
+        }
+
+        float x = this.x[i];
+        float y = this.y[i];
+        int width = this.width[i];
+        int height = this.height[i];
+        boolean collide = false;
+        if (ya > 0) {
+            if (this.isBlocking(i, x + xa - width, y + ya, xa, 0))
+                collide = true;
+            else if (this.isBlocking(i, x + xa + width, y + ya, xa, 0))
+                collide = true;
+            else if (this.isBlocking(i, x + xa - width, y + ya + 1, xa, ya))
+                collide = true;
+            else if (this.isBlocking(i, x + xa + width, y + ya + 1, xa, ya))
+                collide = true;
+        }
+        if (ya < 0) {
+            if (this.isBlocking(i, x + xa, y + ya - height, xa, ya))
+                collide = true;
+            else if (collide || this.isBlocking(i, x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            else if (collide || this.isBlocking(i, x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+        }
+        boolean avoidCliffs = isKoopa(this.type[i], false) && (this.flags[i] & ON_GROUND) != 0;
+        if (xa > 0) {
+            if (this.isBlocking(i, x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+            if (this.isBlocking(i, x + xa + width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (this.isBlocking(i, x + xa + width, y + ya, xa, ya))
+                collide = true;
+
+            if (avoidCliffs && !this.level.isBlocking((int) ((x + xa + width) / 16), (int) ((y) / 16 + 1), xa, 1))
+                collide = true;
+        }
+        if (xa < 0) {
+            if (this.isBlocking(i, x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            if (this.isBlocking(i, x + xa - width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (this.isBlocking(i, x + xa - width, y + ya, xa, ya))
+                collide = true;
+
+            if (avoidCliffs && !this.level.isBlocking((int) ((x + xa - width) / 16), (int) ((y) / 16 + 1), xa, 1))
+                collide = true;
+        }
+
+        if (collide) {
+            if (xa < 0) {
+                this.x[i] = (int) ((x - width) / 16) * 16 + width;
+                this.xa[i] = 0;
+            }
+            if (xa > 0) {
+                this.x[i] = (int) ((x + width) / 16 + 1) * 16 - width - 1;
+                this.xa[i] = 0;
+            }
+            if (ya < 0) {
+                this.y[i] = (int) ((y - height) / 16) * 16 + height;
+                this.ya[i] = 0;
+            }
+            if (ya > 0) {
+                this.y[i] = (int) (y / 16 + 1) * 16 - 1;
+                this.flags[i] |= ON_GROUND;
+            }
+            return false;
+        } else {
+            this.x[i] += xa;
+            this.y[i] += ya;
+            return true;
+        }
+    }
+
+    private boolean isBlocking(int i, float _x, float _y, float xa, float ya) {
+        int xTile = (int) (_x / 16);
+        int yTile = (int) (_y / 16);
+        if (xTile == (int) (this.x[i] / 16) && yTile == (int) (this.y[i] / 16))
+            return false;
+
+        boolean blocking = this.level.isBlocking(xTile, yTile, xa, ya);
+        // only shells bump the blocks they run into
+        if (blocking && ya == 0 && xa != 0 && this.type[i] == SpriteType.SHELL.ordinal()) {
+            this.bump(xTile, yTile, true);
+        }
+        return blocking;
+    }
+
+    private void updateMario() {
+        if (this.invulnerableTime > 0) {
+            this.invulnerableTime--;
+        }
+        this.wasOnGround = this.onGround;
+
+        boolean speed = MarioActions.isPressed(this.actions, MarioActions.SPEED);
+        boolean jump = MarioActions.isPressed(this.actions, MarioActions.JUMP);
+        float sideWaysSpeed = speed ? 1.2f : 0.6f;
+
+        if (this.onGround) {
+            this.isDucking = MarioActions.isPressed(this.actions, MarioActions.DOWN) && this.isLarge;
+        }
+
+        if (this.isLarge) {
+            this.marioHeight = this.isDucking ? 12 : 24;
+        } else {
+            this.marioHeight = 12;
+        }
+
+        if (this.marioXa > 2) {
+            this.marioFacing = 1;
+        }
+        if (this.marioXa < -2) {
+            this.marioFacing = -1;
+        }
+
+        if (jump || (this.jumpTime < 0 && !this.onGround)) {
+            if (this.jumpTime < 0) {
+                this.marioXa = this.xJumpSpeed;
+                this.marioYa = -this.jumpTime * this.yJumpSpeed;
+                this.jumpTime++;
+            } else if (this.onGround && this.mayJump) {
+                this.xJumpSpeed = 0;
+                this.yJumpSpeed = -1.9f;
+                this.jumpTime = 7;
+                this.marioYa = this.jumpTime * this.yJumpSpeed;
+                this.onGround = false;
+                if (!(this.isMarioBlocking(this.marioX, this.marioY - 4 - this.marioHeight, 0, -4)
+                        || this.isMarioBlocking(this.marioX - MARIO_WIDTH, this.marioY - 4 - this.marioHeight, 0, -4)
+                        || this.isMarioBlocking(this.marioX + MARIO_WIDTH, this.marioY - 4 - this.marioHeight, 0, -4))) {
+                    this.xJumpStart = this.marioX;
+                    this.addEvent(EventType.JUMP, 0);
+                }
+            } else if (this.jumpTime > 0) {
+                this.marioXa += this.xJumpSpeed;
+                this.marioYa = this.jumpTime * this.yJumpSpeed;
+                this.jumpTime--;
+            }
+        } else {
+            this.jumpTime = 0;
+        }
+
+        if (MarioActions.isPressed(this.actions, MarioActions.LEFT) && !this.isDucking) {
+            this.marioXa -= sideWaysSpeed;
+            if (this.jumpTime >= 0)
+                this.marioFacing = -1;
+        }
+
+        if (MarioActions.isPressed(this.actions, MarioActions.RIGHT) && !this.isDucking) {
+            this.marioXa += sideWaysSpeed;
+            if (this.jumpTime >= 0)
+                this.marioFacing = 1;
+        }
+
+        if (speed && this.canShoot && this.isFire && this.fireballsOnScreen < 2) {
+            this.addFireball(this.marioX + this.marioFacing * 6, this.marioY - 20, this.marioFacing);
+        }
+
+        this.canShoot = !speed;
+
+        this.mayJump = this.onGround && !jump;
+
+        if (Math.abs(this.marioXa) < 0.5f) {
+            this.marioXa = 0;
+        }
+
+        this.onGround = false;
+        this.moveMario(this.marioXa, 0);
+        this.moveMario(0, this.marioYa);
+        if (!this.wasOnGround && this.onGround && this.xJumpStart >= 0) {
+            this.addEvent(EventType.LAND, 0);
+            this.xJumpStart = -100;
+        }
+
+        if (this.marioX < 0) {
+            this.marioX = 0;
+            this.marioXa = 0;
+        }
+
+        if (this.marioX > this.level.exitTileX * 16) {
+            this.marioX = this.level.exitTileX * 16;
+            this.marioXa = 0;
+            this.win();
+        }
+
+        this.marioYa *= 0.85f;
+        this.marioXa *= 0.89f;
+
+        if (!this.onGround) {
+            this.marioYa += 3;
+        }
+    }
+
+    private boolean moveMario(float xa, float ya) {
+        while (xa > 8) {
+            if (!this.moveMario(8, 0))
+                return false;
+            xa -= 8;
+        }
+        while (xa < -8) {
+            if (!this.moveMario(-8, 0))
+                return false;
+            xa += 8;
+        }
+        while (ya > 8) {
+            if (!this.moveMario(0, 8))
+                return false;
+            ya -= 8;
+        }
+        while (ya < -8) {
+            if (!this.moveMario(0, -8))
+                return false;
+            ya += 8;
+        }
+
+        float x = this.marioX;
+        float y = this.marioY;
+        int width = MARIO_WIDTH;
+        int height = this.marioHeight;
+        boolean collide = false;
+        if (ya > 0) {
+            if (this.isMarioBlocking(x + xa - width, y + ya, xa, 0))
+                collide = true;
+            else if (this.isMarioBlocking(x + xa + width, y + ya, xa, 0))
+                collide = true;
+            else if (this.isMarioBlocking(x + xa - width, y + ya + 1, xa, ya))
+                collide = true;
+            else if (this.isMarioBlocking(x + xa + width, y + ya + 1, xa, ya))
+                collide = true;
+        }
+        if (ya < 0) {
+            if (this.isMarioBlocking(x + xa, y + ya - height, xa, ya))
+                collide = true;
+            else if (collide || this.isMarioBlocking(x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            else if (collide || this.isMarioBlocking(x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+        }
+        if (xa > 0) {
+            if (this.isMarioBlocking(x + xa + width, y + ya - height, xa, ya))
+                collide = true;
+            if (this.isMarioBlocking(x + xa + width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (this.isMarioBlocking(x + xa + width, y + ya, xa, ya))
+                collide = true;
+        }
+        if (xa < 0) {
+            if (this.isMarioBlocking(x + xa - width, y + ya - height, xa, ya))
+                collide = true;
+            if (this.isMarioBlocking(x + xa - width, y + ya - height / 2, xa, ya))
+                collide = true;
+            if (this.isMarioBlocking(x + xa - width, y + ya, xa, ya))
+                collide = true;
+        }
+        if (collide) {
+            if (xa < 0) {
+                this.marioX = (int) ((x - width) / 16) * 16 + width;
+                this.marioXa = 0;
+            }
+            if (xa > 0) {
+                this.marioX = (int) ((x + width) / 16 + 1) * 16 - width - 1;
+                this.marioXa = 0;
+            }
+            if (ya < 0) {
+                this.marioY = (int) ((y - height) / 16) * 16 + height;
+                this.jumpTime = 0;
+                this.marioYa = 0;
+            }
+            if (ya > 0) {
+                this.marioY = (int) ((y - 1) / 16 + 1) * 16 - 1;
+                this.onGround = true;
+            }
+            return false;
+        } else {
+            this.marioX += xa;
+            this.marioY += ya;
+            return true;
+        }
+    }
+
+    private boolean isMarioBlocking(float _x, float _y, float xa, float ya) {
+        int xTile = (int) (_x / 16);
+        int yTile = (int) (_y / 16);
+        if (xTile == (int) (this.marioX / 16) && yTile == (int) (this.marioY / 16))
+            return false;
+
+        boolean blocking = this.level.isBlocking(xTile, yTile, xa, ya);
+        int block = this.level.getBlock(xTile, yTile);
+
+        if (TileFeature.hasFeature(block, TileFeature.PICKABLE)) {
+            this.addEvent(EventType.COLLECT, block);
+            this.collectCoin();
+            this.level.setBlock(xTile, yTile, 0);
+        }
+        if (blocking && ya < 0) {
+            this.bump(xTile, yTile, this.isLarge);
+        }
+        return blocking;
+    }
+
+    private void stomp(int i) {
+        if (!this.marioAlive) {
+            return;
+        }
+        float targetY = this.y[i] - this.height[i] / 2;
+        this.moveMario(0, targetY - this.marioY);
+
+        this.xJumpSpeed = 0;
+        this.yJumpSpeed = -1.9f;
+        this.jumpTime = 8;
+        this.marioYa = this.jumpTime * this.yJumpSpeed;
+        this.onGround = false;
+        this.invulnerableTime = 1;
+    }
+
+    private void getHurt() {
+        if (this.invulnerableTime > 0 || !this.marioAlive)
+            return;
+
+        if (this.isLarge) {
+            this.pauseTimer = 9;
+            if (this.isFire) {
+                this.isFire = false;
+            } else {
+                this.isLarge = false;
+            }
+            this.invulnerableTime = 32;
+        } else {
+            this.lose();
+        }
+    }
+
+    private void getFlower() {
+        if (!this.marioAlive) {
+            return;
+        }
+        if (!this.isFire) {
+            this.pauseTimer = 9;
+            this.isFire = true;
+            this.isLarge = true;
+        } else {
+            this.collectCoin();
+        }
+    }
+
+    private void getMushroom() {
+        if (!this.marioAlive) {
+            return;
+        }
+        if (!this.isLarge) {
+            this.pauseTimer = 9;
+            this.isLarge = true;
+        } else {
+            this.collectCoin();
+        }
+    }
+
+    private void collect1Up() {
+        if (!this.marioAlive) {
+            return;
+        }
+        this.lives++;
+    }
+
+    private void collectCoin() {
+        if (!this.marioAlive) {
+            return;
+        }
+        this.coins++;
+        if (this.coins % 100 == 0) {
+            this.collect1Up();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package engine.core;
+
+import java.util.function.Supplier;
+
+/**
+ * A single (agent, level) pair that is played by the MarioBatchRunner
+ */
+public class MarioBatchJob {
+    private final String agentName;
+    private final Supplier<MarioAgent> agentFactory;
+    private final String levelName;
+    private final String level;
+    private final MarioLevel loadedLevel;
+    private final int timer;
+    private final int marioState;
+    private MarioResult result;
+
+    /**
+     * Create a job that will be played headless
+     *
+     * @param agentName    the name used to report the agent in the results
+     * @param agentFactory creates a fresh agent for this job, agents are never shared between jobs
+     * @param levelName    the name used to report the level in the results (usually the file path)
+     * @param level        a string that constitutes the mario level
+     * @param timer        number of ticks for that level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState   the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     */
+    public MarioBatchJob(String agentName, Supplier<MarioAgent> agentFactory, String levelName, String level,
+                         int timer, int marioState) {
+        this.agentName = agentName;
+        this.agentFactory = agentFactory;
+        this.levelName = levelName;
+        this.level = level;
+        this.loadedLevel = null;
+        this.timer = timer;
+        this.marioState = marioState;
+    }
+
+    /**
+     * Create a job on an already loaded level (for example a binary level), the level is not parsed again
+     *
+     * @param agentName    the name used to report the agent in the results
+     * @param agentFactory creates a fresh agent for this job, agents are never shared between jobs
+     * @param levelName    the name used to report the level in the results (usually the file path)
+     * @param level        the level to play, each game is played on a copy of it
+     * @param timer        number of ticks for that level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState   the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     */
+    public MarioBatchJob(String agentName, Supplier<MarioAgent> agentFactory, String levelName, MarioLevel level,
+                         int timer, int marioState) {
+        this.agentName = agentName;
+        this.agentFactory = agentFactory;
+        this.levelName = levelName;
+        this.level = null;
+        this.loadedLevel = level;
+        this.timer = timer;
+        this.marioState = marioState;
+    }
+
+    MarioBatchJob run() {
+        // batches only report statistics, so the events are counted but never kept
+        MarioGame game = new MarioGame();
+        game.setEventSink(MarioEventSink.DISCARD);
+        if (this.loadedLevel != null) {
+            this.result = game.runGame(this.agentFactory.get(), this.loadedLevel, this.timer, this.marioState);
+        } else {
+            this.result = game.runGame(this.agentFactory.get(), this.level, this.timer, this.marioState);
+        }
+        return this;
+    }
+
+    public String getAgentName() {
+        return this.agentName;
+    }
+
+    public String getLevelName() {
+        return this.levelName;
+    }
+
+    public int getTimer() {
+        return this.timer;
+    }
+
+    public int getMarioState() {
+        return this.marioState;
+    }
+
+    /**
+     * Get the result of playing this job
+     *
+     * @return statistics about the played game or null if the job didn't finish yet, the events of the game
+     * are not kept so its event lists are empty
+     */
+    public MarioResult getResult() {
+        return this.result;
+    }
+}
@@ -0,0 +1,182 @@
+package engine.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Plays a batch of (agent, level) pairs headless on a pool of worker threads.
+ * Every job gets its own MarioGame, MarioWorld and agent so jobs don't share any mutable state.
+ */
+public class MarioBatchRunner {
+    private final int threads;
+    private final ArrayList<MarioBatchJob> jobs;
+
+    /**
+     * Create a batch runner that uses all the available cores
+     */
+    public MarioBatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a batch runner with a fixed number of worker threads
+     *
+     * @param threads number of games that are played at the same time
+     */
+    public MarioBatchRunner(int threads) {
+        this.threads = Math.max(1, threads);
+        this.jobs = new ArrayList<>();
+    }
+
+    /**
+     * Add a single job to the batch
+     *
+     * @param job the agent and level that will be played
+     */
+    public void addJob(MarioBatchJob job) {
+        this.jobs.add(job);
+    }
+
+    /**
+     * Add a job for a certain agent on a certain level
+     *
+     * @param agentName    the name used to report the agent in the results
+     * @param agentFactory creates a fresh agent for every job
+     * @param levelName    the name used to report the level in the results
+     * @param level        a string that constitutes the mario level
+     * @param timer        number of ticks for that level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState   the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     */
+    public void addJob(String agentName, Supplier<MarioAgent> agentFactory, String levelName, String level,
+                       int timer, int marioState) {
+        this.addJob(new MarioBatchJob(agentName, agentFactory, levelName, level, timer, marioState));
+    }
+
+    /**
+     * Add a job for a certain agent on every level file in a folder
+     *
+     * @param agentName    the name used to report the agent in the results
+     * @param agentFactory creates a fresh agent for every job
+     * @param folder       the folder that contains the level files (for example "levels/original/"), binary
+     *                     levels (MarioLevelFile.EXTENSION) are loaded without parsing any text
+     * @param timer        number of ticks for each level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState   the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     * @throws IOException if the folder or one of its levels can't be read
+     */
+    public void addFolder(String agentName, Supplier<MarioAgent> agentFactory, String folder, int timer, int marioState)
+            throws IOException {
+        File[] files = new File(folder).listFiles();
+        if (files == null) {
+            throw new IOException("Can't list the levels in " + folder);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                continue;
+            }
+            if (file.getName().endsWith(MarioLevelFile.EXTENSION)) {
+                this.addJob(new MarioBatchJob(agentName, agentFactory, file.getPath(),
+                        MarioLevelFile.load(file.getPath(), false), timer, marioState));
+            } else {
+                this.addJob(agentName, agentFactory, file.getPath(), new String(Files.readAllBytes(file.toPath())),
+                        timer, marioState);
+            }
+        }
+    }
+
+    /**
+     * Get the number of jobs in the batch
+     *
+     * @return number of jobs that will be played by run
+     */
+    public int getNumberOfJobs() {
+        return this.jobs.size();
+    }
+
+    /**
+     * Play all the jobs in the batch. The listener is called on the calling thread in the order
+     * the jobs finish, so it doesn't need to be thread safe.
+     *
+     * @param listener receives every job as soon as its result is ready
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the results
+     * @throws ExecutionException   if a game or an agent threw an exception
+     */
+    public void run(Consumer<MarioBatchJob> listener) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, Math.max(1, this.jobs.size())), runnable -> {
+            Thread thread = new Thread(runnable, "mario-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ExecutorCompletionService<MarioBatchJob> completion = new ExecutorCompletionService<>(pool);
+            for (MarioBatchJob job : this.jobs) {
+                completion.submit(job::run);
+            }
+            for (int i = 0; i < this.jobs.size(); i++) {
+                Future<MarioBatchJob> finished = completion.take();
+                listener.accept(finished.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Play all the jobs in the batch and wait for them to finish
+     *
+     * @return all the jobs in the order they finished
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the results
+     * @throws ExecutionException   if a game or an agent threw an exception
+     */
+    public ArrayList<MarioBatchJob> run() throws InterruptedException, ExecutionException {
+        ArrayList<MarioBatchJob> finished = new ArrayList<>();
+        this.run(finished::add);
+        return finished;
+    }
+
+    /**
+     * Write the agent metrics of finished jobs as CSV, one line per job under MarioAgentMetrics.CSV_HEADER
+     *
+     * @param filename the path of the file, it is replaced if it exists
+     * @param jobs     the finished jobs, for example the ones returned by run
+     * @throws IOException if the file can't be written
+     */
+    public static void writeMetricsCsv(String filename, List<MarioBatchJob> jobs) throws IOException {
+        ArrayList<String> lines = new ArrayList<>(jobs.size() + 1);
+        lines.add(MarioAgentMetrics.CSV_HEADER);
+        for (MarioBatchJob job : jobs) {
+            lines.add(job.getResult().getAgentMetrics().toCsv(job.getAgentName(), job.getLevelName()));
+        }
+        Files.write(new File(filename).toPath(), lines);
+    }
+
+    /**
+     * Write the agent metrics of finished jobs as a JSON array with one object per job
+     *
+     * @param filename the path of the file, it is replaced if it exists
+     * @param jobs     the finished jobs, for example the ones returned by run
+     * @throws IOException if the file can't be written
+     */
+    public static void writeMetricsJson(String filename, List<MarioBatchJob> jobs) throws IOException {
+        ArrayList<String> lines = new ArrayList<>(jobs.size() + 2);
+        lines.add("[");
+        for (int i = 0; i < jobs.size(); i++) {
+            MarioBatchJob job = jobs.get(i);
+            lines.add(job.getResult().getAgentMetrics().toJson(job.getAgentName(), job.getLevelName()) +
+                    (i < jobs.size() - 1 ? "," : ""));
+        }
+        lines.add("]");
+        Files.write(new File(filename).toPath(), lines);
+    }
+}
@@ -11,6 +11,14 @@ public abstract class MarioEffect {
     protected MarioImage graphics;
 
     public MarioEffect(float x, float y, float xv, float yv, float xa, float ya, int startIndex, int life) {
+        this.graphics = new MarioImage(Assets.particles, startIndex);
+        this.reset(x, y, xv, yv, xa, ya, startIndex, life);
+    }
+
+    /**
+     * Put the effect back in the state it has right after the constructor, used to reuse pooled effects
+     */
+    protected void reset(float x, float y, float xv, float yv, float xa, float ya, int startIndex, int life) {
         this.x = x;
         this.y = y;
         this.xv = xv;
@@ -19,7 +27,8 @@ public abstract class MarioEffect {
         this.ya = ya;
         this.life = life;
 
-        this.graphics = new MarioImage(Assets.particles, startIndex);
+        this.graphics.reset();
+        this.graphics.index = startIndex;
         this.graphics.width = 16;
         this.graphics.height = 16;
         this.graphics.originX = 8;
@@ -46,10 +46,23 @@ public class MarioEvent {
         this.time = time;
     }
 
+    void reset(EventType eventType, int eventParam, float x, float y, int state, int time) {
+        this.eventType = eventType;
+        this.eventParam = eventParam;
+        this.marioX = x;
+        this.marioY = y;
+        this.marioState = state;
+        this.time = time;
+    }
+
     public int getEventType() {
         return this.eventType.getValue();
     }
 
+    EventType getType() {
+        return this.eventType;
+    }
+
     public int getEventParam() {
         return this.eventParam;
     }
@@ -0,0 +1,138 @@
+package engine.core;
+
+import engine.helper.EventType;
+import engine.helper.SpriteType;
+
+/**
+ * A sink that keeps the statistics of MarioResult up to date as the events arrive, so the result doesn't need
+ * the full history of the game. Every statistic is the same as counting the events of the whole game.
+ */
+public class MarioEventCounter implements MarioEventSink {
+    private static final SpriteType[] SPRITE_TYPES = SpriteType.values();
+
+    private final int[] eventCounts = new int[EventType.values().length + 1];
+    private final int[] killsByType = new int[SPRITE_TYPES.length];
+    private int bumpQuestionBlocks;
+    private int bumpBricks;
+    private int destroyedBricks;
+    private int collectedMushrooms;
+    private int collectedFireflowers;
+    private int collectedTileCoins;
+    private float jumpStartX = -100;
+    private int jumpStartTime = -100;
+    private float maxXJump;
+    private int maxJumpAirTime;
+    private int agentTicks;
+
+    @Override
+    public void onGameEvent(MarioEvent event) {
+        int type = event.getEventType();
+        int param = event.getEventParam();
+        this.eventCounts[type] += 1;
+        if (type == EventType.STOMP_KILL.getValue() || type == EventType.FIRE_KILL.getValue() ||
+                type == EventType.SHELL_KILL.getValue()) {
+            for (SpriteType sprite : SPRITE_TYPES) {
+                if (sprite.getValue() == param) {
+                    this.killsByType[sprite.ordinal()] += 1;
+                    break;
+                }
+            }
+        } else if (type == EventType.BUMP.getValue()) {
+            if (param == MarioForwardModel.OBS_QUESTION_BLOCK) {
+                this.bumpQuestionBlocks += 1;
+            }
+            if (param == MarioForwardModel.OBS_BRICK) {
+                this.bumpBricks += 1;
+                if (event.getMarioState() > 0) {
+                    this.destroyedBricks += 1;
+                }
+            }
+        } else if (type == EventType.COLLECT.getValue()) {
+            if (param == SpriteType.MUSHROOM.getValue()) {
+                this.collectedMushrooms += 1;
+            }
+            if (param == SpriteType.FIRE_FLOWER.getValue()) {
+                this.collectedFireflowers += 1;
+            }
+            if (param == MarioForwardModel.OBS_COIN) {
+                this.collectedTileCoins += 1;
+            }
+        } else if (type == EventType.JUMP.getValue()) {
+            this.jumpStartX = event.getMarioX();
+            this.jumpStartTime = event.getTime();
+        } else if (type == EventType.LAND.getValue()) {
+            this.maxXJump = Math.max(this.maxXJump, Math.abs(event.getMarioX() - this.jumpStartX));
+            this.maxJumpAirTime = Math.max(this.maxJumpAirTime, event.getTime() - this.jumpStartTime);
+        }
+    }
+
+    @Override
+    public void onAgentEvent(MarioAgentEvent event) {
+        this.agentTicks += 1;
+    }
+
+    /**
+     * Get how many events of a certain type happened
+     *
+     * @param eventType the type of the events
+     * @return the number of events of that type
+     */
+    public int getCount(EventType eventType) {
+        return this.eventCounts[eventType.getValue()];
+    }
+
+    /**
+     * Get how many ticks the agent played
+     *
+     * @return the number of agent events
+     */
+    public int getAgentTicks() {
+        return this.agentTicks;
+    }
+
+    public int getKillsTotal() {
+        return this.getCount(EventType.STOMP_KILL) + this.getCount(EventType.FIRE_KILL) +
+                this.getCount(EventType.FALL_KILL) + this.getCount(EventType.SHELL_KILL);
+    }
+
+    public int getMarioNumKills(int enemyType) {
+        for (SpriteType sprite : SPRITE_TYPES) {
+            if (sprite.getValue() == enemyType) {
+                return this.killsByType[sprite.ordinal()];
+            }
+        }
+        return 0;
+    }
+
+    public int getNumBumpQuestionBlock() {
+        return this.bumpQuestionBlocks;
+    }
+
+    public int getNumBumpBrick() {
+        return this.bumpBricks;
+    }
+
+    public int getNumDestroyedBricks() {
+        return this.destroyedBricks;
+    }
+
+    public int getNumCollectedMushrooms() {
+        return this.collectedMushrooms;
+    }
+
+    public int getNumCollectedFireflower() {
+        return this.collectedFireflowers;
+    }
+
+    public int getNumCollectedTileCoins() {
+        return this.collectedTileCoins;
+    }
+
+    public float getMaxXJump() {
+        return this.maxXJump;
+    }
+
+    public int getMaxJumpAirTime() {
+        return this.maxJumpAirTime;
+    }
+}
@@ -0,0 +1,85 @@
+package engine.core;
+
+import java.util.ArrayList;
+
+/**
+ * Receives the events of a game while it is played instead of keeping them in lists. A sink can be given to
+ * MarioGame.setEventSink or to MarioWorld.setEventSink, forward model copies of a world never have a sink.
+ */
+public interface MarioEventSink {
+    /**
+     * a sink that ignores every event
+     */
+    MarioEventSink DISCARD = new MarioEventSink() {
+        @Override
+        public void onGameEvent(MarioEvent event) {
+        }
+
+        @Override
+        public void onAgentEvent(MarioAgentEvent event) {
+        }
+    };
+
+    /**
+     * Called for every event that happens in the world, in the same order as MarioWorld.lastFrameEvents
+     *
+     * @param event the game event
+     */
+    void onGameEvent(MarioEvent event);
+
+    /**
+     * Called once for every tick where the agent chose actions, after the world was updated with them
+     *
+     * @param event the actions and the state of mario after the tick
+     */
+    void onAgentEvent(MarioAgentEvent event);
+
+    /**
+     * Create a sink that keeps every event in lists, like MarioGame does when it has no sink
+     *
+     * @param gameEvents  the list the game events are added to
+     * @param agentEvents the list the agent events are added to
+     * @return a sink that adds to the lists
+     */
+    static MarioEventSink collect(ArrayList<MarioEvent> gameEvents, ArrayList<MarioAgentEvent> agentEvents) {
+        return new MarioEventSink() {
+            @Override
+            public void onGameEvent(MarioEvent event) {
+                gameEvents.add(event);
+            }
+
+            @Override
+            public void onAgentEvent(MarioAgentEvent event) {
+                agentEvents.add(event);
+            }
+        };
+    }
+
+    /**
+     * Create a sink that gives every event to some sinks one after the other
+     *
+     * @param sinks the sinks that receive the events
+     * @return a sink that forwards to all of them
+     */
+    static MarioEventSink of(MarioEventSink... sinks) {
+        if (sinks.length == 1) {
+            return sinks[0];
+        }
+        MarioEventSink[] copy = sinks.clone();
+        return new MarioEventSink() {
+            @Override
+            public void onGameEvent(MarioEvent event) {
+                for (MarioEventSink sink : copy) {
+                    sink.onGameEvent(event);
+                }
+            }
+
+            @Override
+            public void onAgentEvent(MarioAgentEvent event) {
+                for (MarioEventSink sink : copy) {
+                    sink.onAgentEvent(event);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package engine.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import engine.helper.EventType;
+
+/**
+ * A sink that streams the events of games to a binary file as they happen, so long games and batches don't
+ * keep any event in memory. The file can be read back into any other sink with read.
+ *
+ * The stream (big endian) starts with a magic number followed by one record per event. A game event record is
+ * the byte 0, the event type (byte), its param (int), mario x and y (floats), mario state (byte) and the tick
+ * (int). An agent event record is the byte 1, the packed actions (byte), mario x and y (floats), mario state
+ * (byte), whether mario is on the ground (byte) and the tick (int).
+ */
+public class MarioEventWriter implements MarioEventSink, Closeable {
+    /**
+     * the first four bytes of an event stream ("MEV1")
+     */
+    public static final int MAGIC = 0x4D455631;
+
+    private static final int GAME_EVENT = 0;
+    private static final int AGENT_EVENT = 1;
+
+    private final DataOutputStream output;
+
+    /**
+     * Create a writer on a new file
+     *
+     * @param filename the path of the file, it is replaced if it exists
+     * @throws IOException if the file can't be created
+     */
+    public MarioEventWriter(String filename) throws IOException {
+        this(new FileOutputStream(filename));
+    }
+
+    /**
+     * Create a writer on a stream, the stream is buffered and closed with the writer
+     *
+     * @param output the stream the events are written to
+     * @throws IOException if the header can't be written
+     */
+    public MarioEventWriter(OutputStream output) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        this.output.writeInt(MAGIC);
+    }
+
+    @Override
+    public void onGameEvent(MarioEvent event) {
+        try {
+            this.output.writeByte(GAME_EVENT);
+            this.output.writeByte(event.getEventType());
+            this.output.writeInt(event.getEventParam());
+            this.output.writeFloat(event.getMarioX());
+            this.output.writeFloat(event.getMarioY());
+            this.output.writeByte(event.getMarioState());
+            this.output.writeInt(event.getTime());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void onAgentEvent(MarioAgentEvent event) {
+        try {
+            this.output.writeByte(AGENT_EVENT);
+            this.output.writeByte(event.getActionMask());
+            this.output.writeFloat(event.getMarioX());
+            this.output.writeFloat(event.getMarioY());
+            this.output.writeByte(event.getMarioState());
+            this.output.writeBoolean(event.getMarioOnGround());
+            this.output.writeInt(event.getTime());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write the buffered events to the file
+     *
+     * @throws IOException if the events can't be written
+     */
+    public void flush() throws IOException {
+        this.output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.output.close();
+    }
+
+    /**
+     * Read an event stream and give its events in order to a sink, for example a MarioEventCounter to get the
+     * statistics of a game that was streamed
+     *
+     * @param filename the path of a file written by a MarioEventWriter
+     * @param sink     the sink that receives the events
+     * @return the number of events that were read
+     * @throws IOException if the file can't be read or isn't an event stream
+     */
+    public static int read(String filename, MarioEventSink sink) throws IOException {
+        EventType[] types = new EventType[EventType.values().length + 1];
+        for (EventType type : EventType.values()) {
+            types[type.getValue()] = type;
+        }
+        int count = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException(filename + " is not an event stream");
+            }
+            int record;
+            while ((record = input.read()) >= 0) {
+                if (record == GAME_EVENT) {
+                    int type = input.readUnsignedByte();
+                    if (type >= types.length || types[type] == null) {
+                        throw new IOException(filename + " has an unknown event type " + type);
+                    }
+                    int param = input.readInt();
+                    float x = input.readFloat();
+                    float y = input.readFloat();
+                    int state = input.readByte();
+                    sink.onGameEvent(new MarioEvent(types[type], param, x, y, state, input.readInt()));
+                } else if (record == AGENT_EVENT) {
+                    int actions = input.readUnsignedByte();
+                    float x = input.readFloat();
+                    float y = input.readFloat();
+                    int state = input.readByte();
+                    boolean onGround = input.readBoolean();
+                    sink.onAgentEvent(new MarioAgentEvent(actions, x, y, state, onGround, input.readInt()));
+                } else {
+                    throw new IOException(filename + " has an unknown record " + record);
+                }
+                count += 1;
+            }
+        } catch (EOFException e) {
+            throw new IOException(filename + " is truncated", e);
+        }
+        return count;
+    }
+}
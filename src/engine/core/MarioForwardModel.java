@@ -1,9 +1,11 @@
 package engine.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import engine.helper.EventType;
 import engine.helper.GameStatus;
+import engine.helper.MarioActions;
 import engine.helper.SpriteType;
 
 public class MarioForwardModel {
@@ -64,7 +66,62 @@ public class MarioForwardModel {
     // Enemies Detail 2
     public static final int OBS_ENEMY = 1;
 
+    // generalized values for every detail level, indexed by tile index and by sprite type ordinal
+    private static final int[][] BLOCK_GENERALIZATION = new int[3][256];
+    private static final int[][] SPRITE_GENERALIZATION = new int[3][SpriteType.values().length];
+
+    static {
+        for (int detail = 0; detail < 3; detail++) {
+            for (int tile = 0; tile < BLOCK_GENERALIZATION[detail].length; tile++) {
+                BLOCK_GENERALIZATION[detail][tile] = computeBlockValueGeneralization(tile, detail);
+            }
+            for (SpriteType sprite : SpriteType.values()) {
+                SPRITE_GENERALIZATION[detail][sprite.ordinal()] = computeSpriteTypeGeneralization(sprite, detail);
+            }
+        }
+    }
+
     public static int getSpriteTypeGeneralization(SpriteType sprite, int detail) {
+        if (detail < 0 || detail > 2) {
+            return computeSpriteTypeGeneralization(sprite, detail);
+        }
+        return SPRITE_GENERALIZATION[detail][sprite.ordinal()];
+    }
+
+    public static int getBlockValueGeneralization(int tile, int detail) {
+        if (detail < 0 || detail > 2 || tile < 0 || tile >= BLOCK_GENERALIZATION[detail].length) {
+            return computeBlockValueGeneralization(tile, detail);
+        }
+        return BLOCK_GENERALIZATION[detail][tile];
+    }
+
+    /**
+     * Get the lookup table that maps every tile index (0 to 255) to its generalized value
+     *
+     * @param detail the detail level of the scene: 0 all detail, 1 less detailed, 2 binary detail
+     * @return the shared lookup table, it must not be modified, or null if the detail level doesn't exist
+     */
+    static int[] getBlockGeneralizationTable(int detail) {
+        if (detail < 0 || detail > 2) {
+            return null;
+        }
+        return BLOCK_GENERALIZATION[detail];
+    }
+
+    /**
+     * Get the lookup table that maps every sprite type ordinal to its generalized value
+     *
+     * @param detail the detail level of the enemies: 0 all details, 1 less detailed, 2 binary detail
+     * @return the shared lookup table, it must not be modified, or null if the detail level doesn't exist
+     */
+    static int[] getSpriteGeneralizationTable(int detail) {
+        if (detail < 0 || detail > 2) {
+            return null;
+        }
+        return SPRITE_GENERALIZATION[detail];
+    }
+
+    private static int computeSpriteTypeGeneralization(SpriteType sprite, int detail) {
         switch (detail) {
             case (0):
                 switch (sprite) {
@@ -114,7 +171,7 @@ public class MarioForwardModel {
         return OBS_UNDEF;
     }
 
-    public static int getBlockValueGeneralization(int tile, int detail) {
+    private static int computeBlockValueGeneralization(int tile, int detail) {
         if (tile == 0) {
             return OBS_NONE;
         }
@@ -206,6 +263,12 @@ public class MarioForwardModel {
     public final int obsGridHeight = MarioGame.tileHeight;
 
     private MarioWorld world;
+    private MarioAgentMetrics metrics;
+    private MarioTimer deadline;
+    // the saved states, stateStarts[i] is where the state with handle i starts in the buffer
+    private MarioStateBuffer states;
+    private int[] stateStarts;
+    private int stateCount;
 
     // stats
     private int fallKill;
@@ -226,13 +289,28 @@ public class MarioForwardModel {
         this.world = world;
     }
 
+    /**
+     * Create a forward model that counts its clones and advances (and the ones of its clones)
+     *
+     * @param world   the current level world that is being used
+     * @param metrics where the clones and advances are counted
+     */
+    MarioForwardModel(MarioWorld world, MarioAgentMetrics metrics) {
+        this.world = world;
+        this.metrics = metrics;
+    }
+
     /**
      * Create a clone from the current forward model state
      *
      * @return a clone from the current forward model state
      */
     public MarioForwardModel clone() {
-        MarioForwardModel model = new MarioForwardModel(this.world.clone());
+        if (this.metrics != null) {
+            this.metrics.countClone();
+        }
+        MarioForwardModel model = new MarioForwardModel(this.world.clone(), this.metrics);
+        model.deadline = this.deadline;
         model.fallKill = this.fallKill;
         model.stompKill = this.stompKill;
         model.fireKill = this.fireKill;
@@ -243,12 +321,141 @@ public class MarioForwardModel {
         return model;
     }
 
+    /**
+     * Copy the current state into a MarioArrayWorld, a headless world that keeps its sprites in primitive arrays
+     * so it is cheaper to clone and advance while giving the same results as this forward model. The array world
+     * and its clones count their clones and advances like the clones of this model do.
+     *
+     * @return a new array world in the same state as this forward model, statistics included
+     */
+    public MarioArrayWorld toArrayWorld() {
+        if (this.metrics != null) {
+            this.metrics.countClone();
+        }
+        MarioArrayWorld world = new MarioArrayWorld(this.world);
+        world.metrics = this.metrics;
+        world.fallKill = this.fallKill;
+        world.stompKill = this.stompKill;
+        world.fireKill = this.fireKill;
+        world.shellKill = this.shellKill;
+        world.mushrooms = this.mushrooms;
+        world.flowers = this.flowers;
+        world.breakBlock = this.breakBlock;
+        return world;
+    }
+
+    /**
+     * Save the current state of the model so it can be restored later, which lets a search advance one model and
+     * rewind it instead of cloning a world for every state it looks at. A saved state is a few ints for every
+     * sprite plus the old values of the tiles that change after it, kept in a buffer that is reused once states
+     * are dropped. The saved states form a stack: restoring a state drops the states saved after it. Clones
+     * don't get the saved states of their model.
+     *
+     * @return the handle of the state, 0 for the first state saved after clearStates and one more for every
+     * state saved after it
+     */
+    public int saveState() {
+        if (this.states == null) {
+            this.states = new MarioStateBuffer();
+            this.stateStarts = new int[16];
+        }
+        if (this.stateCount == 0) {
+            // nothing needs the old tile values anymore
+            this.world.level.stopUndo();
+            this.states.truncate(0);
+        }
+        if (this.stateCount == this.stateStarts.length) {
+            this.stateStarts = Arrays.copyOf(this.stateStarts, this.stateCount * 2);
+        }
+        this.stateStarts[this.stateCount] = this.states.size();
+        this.world.saveState(this.states);
+        this.states.writeInt(this.fallKill);
+        this.states.writeInt(this.stompKill);
+        this.states.writeInt(this.fireKill);
+        this.states.writeInt(this.shellKill);
+        this.states.writeInt(this.mushrooms);
+        this.states.writeInt(this.flowers);
+        this.states.writeInt(this.breakBlock);
+        return this.stateCount++;
+    }
+
+    /**
+     * Bring the model back to a saved state, statistics included. The state stays saved so it can be restored
+     * again, the states saved after it are dropped.
+     *
+     * @param handle the handle saveState returned for the state
+     */
+    public void restoreState(int handle) {
+        if (handle < 0 || handle >= this.stateCount) {
+            throw new IllegalArgumentException("State " + handle + " was never saved or was dropped");
+        }
+        this.states.setPosition(this.stateStarts[handle]);
+        this.world.restoreState(this.states);
+        this.fallKill = this.states.readInt();
+        this.stompKill = this.states.readInt();
+        this.fireKill = this.states.readInt();
+        this.shellKill = this.states.readInt();
+        this.mushrooms = this.states.readInt();
+        this.flowers = this.states.readInt();
+        this.breakBlock = this.states.readInt();
+        this.states.truncate(this.states.getPosition());
+        this.stateCount = handle + 1;
+    }
+
+    /**
+     * Drop all the saved states, the level stops keeping the old values of the tiles that change
+     */
+    public void clearStates() {
+        this.stateCount = 0;
+        if (this.states != null) {
+            this.states.truncate(0);
+            this.world.level.stopUndo();
+        }
+    }
+
+    /**
+     * Stop advancing this model and its future clones once a timer runs out, so rollouts can't go past the budget
+     * of the agent. The deadline is copied by clone, set it again (or to null) when the clones are used with a
+     * new timer.
+     *
+     * @param deadline the timer that ends the simulation or null to always advance (the default)
+     */
+    public void setDeadline(MarioTimer deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Check if the deadline of the model ran out
+     *
+     * @return true if advance doesn't change the model anymore, always false without a deadline
+     */
+    public boolean isExpired() {
+        return this.deadline != null && this.deadline.expired();
+    }
+
     /**
      * Advance the forward model using the action array
      *
      * @param actions a list of all the button states
+     * @return true if the model was advanced, false if its deadline ran out and it was left unchanged
      */
-    public void advance(boolean[] actions) {
+    public boolean advance(boolean[] actions) {
+        return this.advance(MarioActions.pack(actions));
+    }
+
+    /**
+     * Advance the forward model using a packed action mask, it doesn't allocate any action array
+     *
+     * @param actions the pressed buttons packed with MarioActions.pack
+     * @return true if the model was advanced, false if its deadline ran out and it was left unchanged
+     */
+    public boolean advance(int actions) {
+        if (this.deadline != null && this.deadline.expired()) {
+            return false;
+        }
+        if (this.metrics != null) {
+            this.metrics.countAdvance();
+        }
         this.world.update(actions);
         for (MarioEvent e : this.world.lastFrameEvents) {
             if (e.getEventType() == EventType.FIRE_KILL.getValue()) {
@@ -276,6 +483,7 @@ public class MarioForwardModel {
                 this.breakBlock += 1;
             }
         }
+        return true;
     }
 
     /**
@@ -640,4 +848,102 @@ public class MarioForwardModel {
     public int[][] getMarioSceneObservation(int detail) {
         return this.world.getSceneObservation(this.world.mario.x, this.world.mario.y, detail);
     }
-}
+
+    /**
+     * Create a buffer that can hold any of the flat observations
+     *
+     * @return an array of obsGridWidth * obsGridHeight values
+     */
+    public int[] createObservationBuffer() {
+        return new int[this.obsGridWidth * this.obsGridHeight];
+    }
+
+    /**
+     * The current screen status around the center of screen written into a reusable buffer. The
+     * buffer is in row major order so the value of tile (x, y) is at buffer[y * obsGridWidth + x].
+     *
+     * @param sceneDetail the detail level of the scene: 0 all detail, 1 less detailed, 2
+     *                    binary detail
+     * @param enemyDetail the detail level of the current enemies: 0 all details, 1 less
+     *                    detailed, 2 binary detail
+     * @param buffer      an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer with all the information about all objects on the screen
+     */
+    public int[] getScreenCompleteObservation(int sceneDetail, int enemyDetail, int[] buffer) {
+        this.world.getMergedObservation(this.world.cameraX + MarioGame.width / 2, MarioGame.height / 2,
+                sceneDetail, enemyDetail, buffer);
+        return buffer;
+    }
+
+    /**
+     * The current enemies around the center of screen written into a reusable row major buffer
+     *
+     * @param detail the detail level of the current enemies: 0 all details, 1 less
+     *               detailed, 2 binary detail
+     * @param buffer an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer where each tile contain either 0 to indicate no enemy or a
+     * number to indicate a certain enemy
+     */
+    public int[] getScreenEnemiesObservation(int detail, int[] buffer) {
+        this.world.getEnemiesObservation(this.world.cameraX + MarioGame.width / 2, MarioGame.height / 2, detail, buffer);
+        return buffer;
+    }
+
+    /**
+     * The current objects (not enemies) around the center of screen written into a reusable row major buffer
+     *
+     * @param detail the detail level of the scene: 0 all detail, 1 less detailed, 2
+     *               binary detail
+     * @param buffer an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer where each tile contain either 0 which means it is empty or a
+     * value that reflect the type of the tile in that area
+     */
+    public int[] getScreenSceneObservation(int detail, int[] buffer) {
+        this.world.getSceneObservation(this.world.cameraX + MarioGame.width / 2, MarioGame.height / 2, detail, buffer);
+        return buffer;
+    }
+
+    /**
+     * The current screen status around mario written into a reusable buffer. The buffer is in
+     * row major order so the value of tile (x, y) is at buffer[y * obsGridWidth + x].
+     *
+     * @param sceneDetail the detail level of the scene: 0 all detail, 1 less detailed, 2
+     *                    binary detail
+     * @param enemyDetail the detail level of the current enemies: 0 all details, 1 less
+     *                    detailed, 2 binary detail
+     * @param buffer      an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer with all the information about all objects on the screen
+     */
+    public int[] getMarioCompleteObservation(int sceneDetail, int enemyDetail, int[] buffer) {
+        this.world.getMergedObservation(this.world.mario.x, this.world.mario.y, sceneDetail, enemyDetail, buffer);
+        return buffer;
+    }
+
+    /**
+     * The current enemies around mario written into a reusable row major buffer
+     *
+     * @param detail the detail level of the current enemies: 0 all details, 1 less
+     *               detailed, 2 binary detail
+     * @param buffer an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer where each tile contain either 0 to indicate no enemy or a
+     * number to indicate a certain enemy
+     */
+    public int[] getMarioEnemiesObservation(int detail, int[] buffer) {
+        this.world.getEnemiesObservation(this.world.mario.x, this.world.mario.y, detail, buffer);
+        return buffer;
+    }
+
+    /**
+     * The current objects (not enemies) around mario written into a reusable row major buffer
+     *
+     * @param detail the detail level of the scene: 0 all detail, 1 less detailed, 2
+     *               binary detail
+     * @param buffer an array of at least obsGridWidth * obsGridHeight values (see createObservationBuffer)
+     * @return the same buffer where each tile contain either 0 which means it is empty or a
+     * value that reflect the type of the tile in that area
+     */
+    public int[] getMarioSceneObservation(int detail, int[] buffer) {
+        this.world.getSceneObservation(this.world.mario.x, this.world.mario.y, detail, buffer);
+        return buffer;
+    }
+}
\ No newline at end of file
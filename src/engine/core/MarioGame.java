@@ -51,6 +51,11 @@ public class MarioGame {
      */
     private MarioEvent[] killEvents;
 
+    /**
+     * where the events of the game go, null keeps them all in the result
+     */
+    private MarioEventSink eventSink;
+
     //visualization
     private JFrame window = null;
     private MarioRender render = null;
@@ -73,6 +78,18 @@ public class MarioGame {
         this.killEvents = killEvents;
     }
 
+    /**
+     * Send the events of the next games to a sink instead of keeping them in the result. The statistics of
+     * MarioResult are still available since they are counted while the game is played, but getGameEvents and
+     * getAgentEvents of the result will be empty. Use MarioEventSink.DISCARD to keep no events. The result still
+     * has the packed tick log of the agent (MarioResult.getTickLog), so it can be recorded with MarioReplay.record.
+     *
+     * @param eventSink the sink that receives the events or null to keep them all in the result (the default)
+     */
+    public void setEventSink(MarioEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
     private int getDelay(int fps) {
         if (fps <= 0) {
             return 0;
@@ -204,6 +221,49 @@ public class MarioGame {
      * @return statistics about the current game
      */
     public MarioResult runGame(MarioAgent agent, String level, int timer, int marioState, boolean visuals, int fps, float scale) {
+        this.initializeWindow(visuals, scale);
+        this.setAgent(agent);
+        return this.gameLoop(new MarioLevel(level, visuals), timer, marioState, visuals, fps);
+    }
+
+    /**
+     * Run an already loaded level (for example a binary level) with a certain agent. The game is played
+     * on a copy of the level so the same level object can be played many times.
+     *
+     * @param agent      the current AI agent used to play the game
+     * @param level      the level to play, see MarioLevelFile for loading binary levels
+     * @param timer      number of ticks for that level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     * @return statistics about the current game
+     */
+    public MarioResult runGame(MarioAgent agent, MarioLevel level, int timer, int marioState) {
+        return this.runGame(agent, level, timer, marioState, false, 0, 2);
+    }
+
+    /**
+     * Run an already loaded level (for example a binary level) with a certain agent. The game is played
+     * on a copy of the level so the same level object can be played many times.
+     *
+     * @param agent      the current AI agent used to play the game
+     * @param level      the level to play, see MarioLevelFile for loading binary levels
+     * @param timer      number of ticks for that level to be played. Setting timer to anything &lt;=0 will make the time infinite
+     * @param marioState the initial state that mario appears in. 0 small mario, 1 large mario, and 2 fire mario.
+     * @param visuals    show the game visuals if it is true and false otherwise
+     * @param fps        the number of frames per second that the update function is following
+     * @param scale      the screen scale, that scale value is multiplied by the actual width and height
+     * @return statistics about the current game
+     */
+    public MarioResult runGame(MarioAgent agent, MarioLevel level, int timer, int marioState, boolean visuals, int fps, float scale) {
+        this.initializeWindow(visuals, scale);
+        this.setAgent(agent);
+        MarioLevel copy = level.clone();
+        if (visuals) {
+            copy.initializeVisuals();
+        }
+        return this.gameLoop(copy, timer, marioState, visuals, fps);
+    }
+
+    private void initializeWindow(boolean visuals, float scale) {
         if (visuals) {
             this.window = new JFrame("Mario AI Framework");
             this.render = new MarioRender(scale);
@@ -214,11 +274,9 @@ public class MarioGame {
             this.render.init();
             this.window.setVisible(true);
         }
-        this.setAgent(agent);
-        return this.gameLoop(level, timer, marioState, visuals, fps);
     }
 
-    private MarioResult gameLoop(String level, int timer, int marioState, boolean visual, int fps) {
+    private MarioResult gameLoop(MarioLevel level, int timer, int marioState, boolean visual, int fps) {
         this.world = new MarioWorld(this.killEvents);
         this.world.visuals = visual;
         this.world.initializeLevel(level, 1000 * timer);
@@ -227,7 +285,7 @@ public class MarioGame {
         }
         this.world.mario.isLarge = marioState > 0;
         this.world.mario.isFire = marioState > 1;
-        this.world.update(new boolean[MarioActions.numberOfActions()]);
+        this.world.update(0);
         long currentTime = System.currentTimeMillis();
 
         //initialize graphics
@@ -241,26 +299,37 @@ public class MarioGame {
             this.render.addFocusListener(this.render);
         }
 
+        MarioAgentMetrics metrics = new MarioAgentMetrics(MarioGame.maxTime + MarioGame.graceTime);
         MarioTimer agentTimer = new MarioTimer(MarioGame.maxTime);
-        this.agent.initialize(new MarioForwardModel(this.world.clone()), agentTimer);
+        long start = System.nanoTime();
+        this.agent.initialize(new MarioForwardModel(this.world.clone(), metrics), agentTimer);
+        metrics.recordInitialization(System.nanoTime() - start);
 
         ArrayList<MarioEvent> gameEvents = new ArrayList<>();
         ArrayList<MarioAgentEvent> agentEvents = new ArrayList<>();
+        MarioEventCounter counter = new MarioEventCounter();
+        MarioTickLog tickLog = new MarioTickLog();
+        MarioEventSink sink = MarioEventSink.of(counter, tickLog,
+                this.eventSink != null ? this.eventSink : MarioEventSink.collect(gameEvents, agentEvents));
+        this.world.setEventSink(sink);
         while (this.world.gameStatus == GameStatus.RUNNING) {
             if (!this.pause) {
                 //get actions
                 agentTimer = new MarioTimer(MarioGame.maxTime);
-                boolean[] actions = this.agent.getActions(new MarioForwardModel(this.world.clone()), agentTimer);
+                MarioForwardModel model = new MarioForwardModel(this.world.clone(), metrics);
+                start = System.nanoTime();
+                boolean[] actions = this.agent.getActions(model, agentTimer);
+                long decisionTime = System.nanoTime() - start;
+                metrics.recordDecision(decisionTime);
                 if (MarioGame.verbose) {
-                    if (agentTimer.getRemainingTime() < 0 && Math.abs(agentTimer.getRemainingTime()) > MarioGame.graceTime) {
-                        System.out.println("The Agent is slowing down the game by: "
-                                + Math.abs(agentTimer.getRemainingTime()) + " msec.");
+                    long overrun = decisionTime / 1000000 - MarioGame.maxTime;
+                    if (overrun > MarioGame.graceTime) {
+                        System.out.println("The Agent is slowing down the game by: " + overrun + " msec.");
                     }
                 }
                 // update world
                 this.world.update(actions);
-                gameEvents.addAll(this.world.lastFrameEvents);
-                agentEvents.add(new MarioAgentEvent(actions, this.world.mario.x,
+                sink.onAgentEvent(new MarioAgentEvent(MarioActions.pack(actions), this.world.mario.x,
                         this.world.mario.y, (this.world.mario.isLarge ? 1 : 0) + (this.world.mario.isFire ? 1 : 0),
                         this.world.mario.onGround, this.world.currentTick));
             }
@@ -279,6 +348,7 @@ public class MarioGame {
                 }
             }
         }
-        return new MarioResult(this.world, gameEvents, agentEvents);
+        this.world.setEventSink(null);
+        return new MarioResult(this.world, counter, gameEvents, agentEvents, metrics, tickLog);
     }
 }
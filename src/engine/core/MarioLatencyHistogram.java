@@ -0,0 +1,150 @@
+package engine.core;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed relative precision, in the style of an HDR histogram.
+ * Values below 128 ns have their own bucket, above that every power of two is split in 64 buckets, so a recorded
+ * value is off by less than 1.6%. Recording is a few shifts and an array increment and never allocates.
+ */
+public class MarioLatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * the largest value that can be recorded (about 68 seconds), bigger values are recorded as this one
+     */
+    public static final long MAX_VALUE = (1L << 36) - 1;
+
+    private final long[] counts = new long[getIndex(MAX_VALUE) + 1];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    private static int getIndex(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return shift * SUB_COUNT + (int) (value >>> shift);
+    }
+
+    private static long getHighestValue(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Record a duration
+     *
+     * @param nanos the duration in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(0, nanos), MAX_VALUE);
+        this.counts[getIndex(value)] += 1;
+        this.count += 1;
+        this.total += value;
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Add all the values of another histogram to this one, for example to get the latency of an agent over
+     * many levels
+     *
+     * @param other the histogram that is added, it isn't changed
+     */
+    public void add(MarioLatencyHistogram other) {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.count += other.count;
+        this.total += other.total;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the smallest recorded value
+     *
+     * @return the exact smallest value in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMin() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    /**
+     * Get the largest recorded value
+     *
+     * @return the exact largest value in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Get the mean of the recorded values
+     *
+     * @return the exact mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.total / this.count;
+    }
+
+    /**
+     * Get the value that a percentage of the recorded values are below or equal to
+     *
+     * @param percentile a value between 0 and 100, for example 99 for the p99
+     * @return the highest value of the bucket that holds the percentile (never more than getMax()), 0 if nothing
+     * was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(getHighestValue(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Get the number of buckets, buckets are numbered from 0 to getNumberOfBuckets() - 1 in increasing order
+     *
+     * @return the number of buckets
+     */
+    public int getNumberOfBuckets() {
+        return this.counts.length;
+    }
+
+    /**
+     * Get the number of values recorded in a bucket
+     *
+     * @param bucket the bucket between 0 and getNumberOfBuckets() - 1
+     * @return the number of recorded values in that bucket
+     */
+    public long getBucketCount(int bucket) {
+        return this.counts[bucket];
+    }
+
+    /**
+     * Get the largest value that goes in a bucket
+     *
+     * @param bucket the bucket between 0 and getNumberOfBuckets() - 1
+     * @return the highest value of the bucket in nanoseconds
+     */
+    public long getBucketHighestValue(int bucket) {
+        return getHighestValue(bucket);
+    }
+}
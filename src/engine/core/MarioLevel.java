@@ -1,7 +1,9 @@
 package engine.core;
 
 import java.awt.Graphics;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import engine.graphics.MarioImage;
 import engine.graphics.MarioTilemap;
@@ -10,6 +12,25 @@ import engine.helper.SpriteType;
 import engine.helper.TileFeature;
 
 public class MarioLevel {
+    /**
+     * the initial code of sprites that were not spawned from a level tile
+     */
+    public static final long NO_SPRITE_CODE = 0;
+    /**
+     * the first four bytes of a level in the binary format ("MLV1")
+     */
+    public static final int BINARY_MAGIC = 0x4D4C5631;
+    /**
+     * the version of the binary format written after the magic number, it changes when the format does
+     */
+    public static final int BINARY_VERSION = 2;
+    // written after the version so files stop loading, instead of getting other sprites, if SpriteType is reordered
+    private static final int SPRITE_TYPES_HASH = Arrays.toString(SpriteType.values()).hashCode();
+    // the tile features that stop a sprite moving sideways, up or down, the collision bitmap only keeps these
+    private static final int BLOCKING = TileFeature.BLOCK_ALL.getMask();
+    private static final int BLOCKING_UP = BLOCKING | TileFeature.BLOCK_UPPER.getMask();
+    private static final int BLOCKING_DOWN = BLOCKING | TileFeature.BLOCK_LOWER.getMask();
+    private static final int COLLISION_MASK = BLOCKING_UP | BLOCKING_DOWN;
 
     public int width = MarioGame.width;
     public int tileWidth = MarioGame.width / 16;
@@ -21,6 +42,21 @@ public class MarioLevel {
     private int[][] levelTiles;
     private SpriteType[][] spriteTemplates;
     private int[][] lastSpawnTime;
+    // columns of levelTiles/lastSpawnTime that are not shared with any clone and can be written in place. The
+    // flags only hold for the clone generation they were set in: clone just counts a new generation instead of
+    // clearing the flags, so cloning never writes to the level it copies and can run on many threads at once
+    private boolean[] ownedTileColumns;
+    private boolean[] ownedSpawnColumns;
+    private final AtomicInteger generation = new AtomicInteger();
+    private int ownedGeneration;
+    // the blocking features of every tile (x * tileHeight + y), shared with clones until one of them writes a tile,
+    // it is owned like the columns: only in the generation ownsCollision was set in
+    private byte[] collision;
+    private boolean ownsCollision;
+    // the old values of the tiles and spawn ticks written since undo recording started, three ints per write:
+    // the column (shifted left, the low bit is set for spawn ticks), the row and the old value
+    private int[] undoLog;
+    private int undoSize;
     private MarioTilemap graphics;
     private MarioImage flag;
 
@@ -48,12 +84,16 @@ public class MarioLevel {
                 this.lastSpawnTime[x][y] = -40;
             }
         }
+        this.ownedTileColumns = new boolean[lines[0].length()];
+        this.ownedSpawnColumns = new boolean[lines[0].length()];
+        Arrays.fill(this.ownedTileColumns, true);
+        Arrays.fill(this.ownedSpawnColumns, true);
 
         boolean marioLocInit = false;
         boolean exitLocInit = false;
         for (int y = 0; y < lines.length; y++) {
             for (int x = 0; x < lines[y].length(); x++) {
-                Character c = lines[y].charAt(x);
+                char c = lines[y].charAt(x);
                 switch (c) {
                     case 'M':
                         this.marioTileX = x;
@@ -261,15 +301,184 @@ public class MarioLevel {
             this.levelTiles[this.exitTileX][y] = 40;
         }
         this.levelTiles[this.exitTileX][Math.max(1, this.exitTileY - 11)] = 39;
+        this.initializeCollision();
 
         if (visuals) {
-            this.graphics = new MarioTilemap(Assets.level, this.levelTiles);
-            this.flag = new MarioImage(Assets.level, 41);
-            this.flag.width = 16;
-            this.flag.height = 16;
+            this.initializeVisuals();
         }
     }
 
+    /**
+     * Read a level written by writeBinary, it only copies tile ids and sprite templates so it is much
+     * faster than parsing the text representation.
+     *
+     * The binary format (big endian) is: magic number, format version, hash of the SpriteType names,
+     * tile width, tile height, mario tile x and y, exit tile x and y, total coins (all ints), the final
+     * tile ids of every column one byte per tile (column after column), then the number of sprite
+     * templates followed by the x and y position (ints) and the SpriteType ordinal (byte) of each template.
+     *
+     * @param buffer  the buffer that contains the level starting at its current position, it can be a
+     *                memory mapped file. the position is moved to the end of the level.
+     * @param visuals prepare the level graphics if it is true
+     * @return the level stored in the buffer
+     * @throws IllegalArgumentException if the buffer doesn't start with a binary level of this version or
+     *                                  the level is corrupt
+     */
+    public static MarioLevel readBinary(ByteBuffer buffer, boolean visuals) {
+        if (buffer.remaining() < 4 || buffer.getInt() != BINARY_MAGIC) {
+            throw new IllegalArgumentException("The buffer doesn't contain a binary level");
+        }
+        int version = buffer.getInt();
+        if (version != BINARY_VERSION) {
+            throw new IllegalArgumentException("The binary level has version " + version + " instead of " + BINARY_VERSION);
+        }
+        if (buffer.getInt() != SPRITE_TYPES_HASH) {
+            throw new IllegalArgumentException("The binary level was written with different sprite types");
+        }
+        int tileWidth = buffer.getInt();
+        int tileHeight = buffer.getInt();
+        if (tileWidth < 0 || tileHeight < 0 || (long) tileWidth * tileHeight > buffer.remaining()) {
+            throw new IllegalArgumentException("The binary level has an invalid size " + tileWidth + "x" + tileHeight);
+        }
+        MarioLevel level = new MarioLevel("", false);
+        level.marioTileX = buffer.getInt();
+        level.marioTileY = buffer.getInt();
+        level.exitTileX = buffer.getInt();
+        level.exitTileY = buffer.getInt();
+        level.totalCoins = buffer.getInt();
+        if (tileWidth == 0) {
+            return level;
+        }
+        level.tileWidth = tileWidth;
+        level.width = tileWidth * 16;
+        level.tileHeight = tileHeight;
+        level.height = tileHeight * 16;
+
+        level.levelTiles = new int[tileWidth][tileHeight];
+        level.spriteTemplates = new SpriteType[tileWidth][tileHeight];
+        level.lastSpawnTime = new int[tileWidth][tileHeight];
+        byte[] column = new byte[tileHeight];
+        for (int x = 0; x < tileWidth; x++) {
+            buffer.get(column);
+            for (int y = 0; y < tileHeight; y++) {
+                level.levelTiles[x][y] = column[y] & 0xFF;
+            }
+            Arrays.fill(level.spriteTemplates[x], SpriteType.NONE);
+            Arrays.fill(level.lastSpawnTime[x], -40);
+        }
+        SpriteType[] types = SpriteType.values();
+        int sprites = buffer.getInt();
+        for (int i = 0; i < sprites; i++) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int type = buffer.get() & 0xFF;
+            if (x < 0 || x >= tileWidth || y < 0 || y >= tileHeight) {
+                throw new IllegalArgumentException("The sprite template at " + x + "," + y + " is outside the level");
+            }
+            if (type >= types.length) {
+                throw new IllegalArgumentException("The sprite template at " + x + "," + y + " has an unknown type " + type);
+            }
+            level.spriteTemplates[x][y] = types[type];
+        }
+        level.ownedTileColumns = new boolean[tileWidth];
+        level.ownedSpawnColumns = new boolean[tileWidth];
+        Arrays.fill(level.ownedTileColumns, true);
+        Arrays.fill(level.ownedSpawnColumns, true);
+        level.initializeCollision();
+
+        if (visuals) {
+            level.initializeVisuals();
+        }
+        return level;
+    }
+
+    /**
+     * Get the number of bytes needed to write this level in the binary format
+     *
+     * @return the size of the level in bytes
+     */
+    public int getBinarySize() {
+        int sprites = 0;
+        for (int x = 0; x < this.tileWidth; x++) {
+            for (int y = 0; y < this.tileHeight; y++) {
+                if (this.spriteTemplates[x][y] != null && this.spriteTemplates[x][y] != SpriteType.NONE) {
+                    sprites += 1;
+                }
+            }
+        }
+        return 11 * 4 + this.tileWidth * this.tileHeight + sprites * 9;
+    }
+
+    /**
+     * Write the level in the binary format read by readBinary. It should be called before the level is
+     * played as it writes the current tiles.
+     *
+     * @param buffer a buffer with at least getBinarySize() remaining bytes
+     */
+    public void writeBinary(ByteBuffer buffer) {
+        buffer.putInt(BINARY_MAGIC);
+        buffer.putInt(BINARY_VERSION);
+        buffer.putInt(SPRITE_TYPES_HASH);
+        buffer.putInt(this.tileWidth);
+        buffer.putInt(this.tileHeight);
+        buffer.putInt(this.marioTileX);
+        buffer.putInt(this.marioTileY);
+        buffer.putInt(this.exitTileX);
+        buffer.putInt(this.exitTileY);
+        buffer.putInt(this.totalCoins);
+        int sprites = 0;
+        for (int x = 0; x < this.tileWidth; x++) {
+            for (int y = 0; y < this.tileHeight; y++) {
+                if (this.levelTiles[x][y] < 0 || this.levelTiles[x][y] > 255) {
+                    throw new IllegalArgumentException("Tile " + this.levelTiles[x][y] + " doesn't fit in a byte");
+                }
+                buffer.put((byte) this.levelTiles[x][y]);
+                if (this.spriteTemplates[x][y] != null && this.spriteTemplates[x][y] != SpriteType.NONE) {
+                    sprites += 1;
+                }
+            }
+        }
+        buffer.putInt(sprites);
+        for (int x = 0; x < this.tileWidth; x++) {
+            for (int y = 0; y < this.tileHeight; y++) {
+                if (this.spriteTemplates[x][y] != null && this.spriteTemplates[x][y] != SpriteType.NONE) {
+                    buffer.putInt(x);
+                    buffer.putInt(y);
+                    buffer.put((byte) this.spriteTemplates[x][y].ordinal());
+                }
+            }
+        }
+    }
+
+    private void initializeCollision() {
+        this.collision = new byte[this.tileWidth * this.tileHeight];
+        for (int x = 0; x < this.tileWidth; x++) {
+            for (int y = 0; y < this.tileHeight; y++) {
+                this.collision[x * this.tileHeight + y] = getCollision(this.levelTiles[x][y]);
+            }
+        }
+        this.ownsCollision = true;
+    }
+
+    private static byte getCollision(int index) {
+        return (byte) (TileFeature.getFeatures(index) & COLLISION_MASK);
+    }
+
+    void initializeVisuals() {
+        this.graphics = new MarioTilemap(Assets.level, this.levelTiles);
+        this.flag = new MarioImage(Assets.level, 41);
+        this.flag.width = 16;
+        this.flag.height = 16;
+    }
+
+    /**
+     * Create a copy of the level that shares all its tile columns with this level. A column
+     * is only copied the first time either level writes to it (copy on write), so cloning
+     * costs O(width) instead of O(width * height). Cloning doesn't change this level, so one level
+     * can be cloned from several threads at the same time as long as none of them changes it.
+     *
+     * @return a level with the same tiles and spawn times as this one
+     */
     public MarioLevel clone() {
         MarioLevel level = new MarioLevel("", false);
         level.width = this.width;
@@ -281,26 +490,34 @@ public class MarioLevel {
         level.marioTileY = this.marioTileY;
         level.exitTileX = this.exitTileX;
         level.exitTileY = this.exitTileY;
-        level.levelTiles = new int[this.levelTiles.length][this.levelTiles[0].length];
-        level.lastSpawnTime = new int[this.levelTiles.length][this.levelTiles[0].length];
-        for (int x = 0; x < level.levelTiles.length; x++) {
-            for (int y = 0; y < level.levelTiles[x].length; y++) {
-                level.levelTiles[x][y] = this.levelTiles[x][y];
-                level.lastSpawnTime[x][y] = this.lastSpawnTime[x][y];
-            }
-        }
+        // the columns this level owned are shared from now on
+        this.generation.incrementAndGet();
+        level.levelTiles = this.levelTiles.clone();
+        level.lastSpawnTime = this.lastSpawnTime.clone();
+        level.ownedTileColumns = new boolean[this.levelTiles.length];
+        level.ownedSpawnColumns = new boolean[this.levelTiles.length];
+        level.collision = this.collision;
         level.spriteTemplates = this.spriteTemplates;
         return level;
     }
 
+    /**
+     * Check if a tile stops a sprite moving in a direction. It gives the same result as checking the blocking
+     * features of getBlock(xTile, yTile) but it reads them from the collision bitmap of the level.
+     *
+     * @param xTile the x position of the tile, tiles left or right of the level are like the edge columns
+     * @param yTile the y position of the tile, tiles above or below the level never block
+     * @param xa    the horizontal speed of the sprite, it doesn't change the result
+     * @param ya    the vertical speed of the sprite, tiles that only block from above or below need it
+     * @return true if the sprite can't move into the tile
+     */
     public boolean isBlocking(int xTile, int yTile, float xa, float ya) {
-        int block = this.getBlock(xTile, yTile);
-        ArrayList<TileFeature> features = TileFeature.getTileType(block);
-        boolean blocking = features.contains(TileFeature.BLOCK_ALL);
-        blocking |= (ya < 0) && features.contains(TileFeature.BLOCK_UPPER);
-        blocking |= (ya > 0) && features.contains(TileFeature.BLOCK_LOWER);
-
-        return blocking;
+        if (yTile < 0 || yTile >= this.tileHeight) {
+            return false;
+        }
+        xTile = Math.max(0, Math.min(xTile, this.tileWidth - 1));
+        int mask = ya < 0 ? BLOCKING_UP : (ya > 0 ? BLOCKING_DOWN : BLOCKING);
+        return (this.collision[xTile * this.tileHeight + yTile] & mask) != 0;
     }
 
     public int getBlock(int xTile, int yTile) {
@@ -320,7 +537,39 @@ public class MarioLevel {
         if (xTile < 0 || yTile < 0 || xTile > this.tileWidth - 1 || yTile > this.tileHeight - 1) {
             return;
         }
+        if (this.undoLog != null) {
+            this.logUndo(xTile << 1, yTile, this.levelTiles[xTile][yTile]);
+        }
+        this.writeBlock(xTile, yTile, index);
+    }
+
+    // drops the owned flags once the level was cloned since they were set
+    private void checkGeneration() {
+        int generation = this.generation.get();
+        if (generation != this.ownedGeneration) {
+            Arrays.fill(this.ownedTileColumns, false);
+            Arrays.fill(this.ownedSpawnColumns, false);
+            this.ownsCollision = false;
+            this.ownedGeneration = generation;
+        }
+    }
+
+    private void writeBlock(int xTile, int yTile, int index) {
+        this.checkGeneration();
+        if (!this.ownedTileColumns[xTile]) {
+            // only replace the column inside the outer array so the tilemap keeps seeing the live tiles
+            this.levelTiles[xTile] = this.levelTiles[xTile].clone();
+            this.ownedTileColumns[xTile] = true;
+        }
         this.levelTiles[xTile][yTile] = index;
+        byte bits = getCollision(index);
+        if (this.collision[xTile * this.tileHeight + yTile] != bits) {
+            if (!this.ownsCollision) {
+                this.collision = this.collision.clone();
+                this.ownsCollision = true;
+            }
+            this.collision[xTile * this.tileHeight + yTile] = bits;
+        }
     }
 
     public void setShiftIndex(int xTile, int yTile, int shift) {
@@ -348,11 +597,79 @@ public class MarioLevel {
         if (xTile < 0 || yTile < 0 || xTile > this.tileWidth - 1 || yTile > this.tileHeight - 1) {
             return;
         }
+        if (this.undoLog != null) {
+            this.logUndo((xTile << 1) | 1, yTile, this.lastSpawnTime[xTile][yTile]);
+        }
+        this.writeLastSpawnTick(xTile, yTile, tick);
+    }
+
+    private void writeLastSpawnTick(int xTile, int yTile, int tick) {
+        this.checkGeneration();
+        if (!this.ownedSpawnColumns[xTile]) {
+            this.lastSpawnTime[xTile] = this.lastSpawnTime[xTile].clone();
+            this.ownedSpawnColumns[xTile] = true;
+        }
         this.lastSpawnTime[xTile][yTile] = tick;
     }
 
-    public String getSpriteCode(int xTile, int yTile) {
-        return xTile + "_" + yTile + "_" + this.getSpriteType(xTile, yTile).getValue();
+    private void logUndo(int column, int yTile, int value) {
+        if (this.undoSize + 3 > this.undoLog.length) {
+            this.undoLog = Arrays.copyOf(this.undoLog, this.undoLog.length * 2);
+        }
+        this.undoLog[this.undoSize] = column;
+        this.undoLog[this.undoSize + 1] = yTile;
+        this.undoLog[this.undoSize + 2] = value;
+        this.undoSize += 3;
+    }
+
+    /**
+     * Record the old value of every tile and spawn tick written from now on (if it isn't recorded yet) and get a
+     * mark of the current level. Clones don't record anything until they are marked themselves.
+     *
+     * @return the mark to give to undo to get the tiles and spawn ticks back as they are now
+     */
+    int markUndo() {
+        if (this.undoLog == null) {
+            this.undoLog = new int[192];
+        }
+        return this.undoSize;
+    }
+
+    /**
+     * Write back the old values of everything written since a mark, the marks taken after it become invalid
+     *
+     * @param mark a mark returned by markUndo since the recording started
+     */
+    void undo(int mark) {
+        for (int i = this.undoSize - 3; i >= mark; i -= 3) {
+            int column = this.undoLog[i];
+            if ((column & 1) == 0) {
+                this.writeBlock(column >> 1, this.undoLog[i + 1], this.undoLog[i + 2]);
+            } else {
+                this.writeLastSpawnTick(column >> 1, this.undoLog[i + 1], this.undoLog[i + 2]);
+            }
+        }
+        this.undoSize = Math.min(this.undoSize, mark);
+    }
+
+    /**
+     * Stop recording old values and drop the ones that were recorded, every mark becomes invalid
+     */
+    void stopUndo() {
+        this.undoLog = null;
+        this.undoSize = 0;
+    }
+
+    /**
+     * Get a code that identifies the sprite spawned from a certain tile, it packs the tile position
+     * and the sprite type into a long so it can be compared without allocating.
+     *
+     * @param xTile the x position of the tile
+     * @param yTile the y position of the tile
+     * @return the spawn code of that tile, it is never NO_SPRITE_CODE for tiles that spawn a sprite
+     */
+    public long getSpriteCode(int xTile, int yTile) {
+        return ((long) xTile << 32) | ((long) (yTile & 0xFFFF) << 16) | (this.getSpriteType(xTile, yTile).getValue() & 0xFFFF);
     }
 
     private boolean isSolid(char c) {
@@ -364,7 +681,7 @@ public class MarioLevel {
     private int findFirstFloor(String[] lines, int x) {
         boolean skipLines = true;
         for (int i = lines.length - 1; i >= 0; i--) {
-            Character c = lines[i].charAt(x);
+            char c = lines[i].charAt(x);
             if (isSolid(c)) {
                 skipLines = false;
                 continue;
@@ -0,0 +1,134 @@
+package engine.core;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads and writes levels in the binary format of MarioLevel.readBinary and converts the text levels to it
+ */
+public class MarioLevelFile {
+    /**
+     * the file extension used for binary levels
+     */
+    public static final String EXTENSION = ".mlvl";
+
+    /**
+     * files smaller than this are read in one go, mapping a file only pays off for big files
+     */
+    private static final long MAP_THRESHOLD = 1 << 16;
+
+    /**
+     * Load a binary level file, big files are memory mapped
+     *
+     * @param filename the path of the binary level
+     * @param visuals  prepare the level graphics if it is true
+     * @return the level stored in the file
+     * @throws IOException if the file can't be read
+     */
+    public static MarioLevel load(String filename, boolean visuals) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer buffer;
+            if (channel.size() < MAP_THRESHOLD) {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return MarioLevel.readBinary(buffer, visuals);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException(filename + " is not a binary level", e);
+        }
+    }
+
+    /**
+     * Load a level from either a binary level file or a text level file depending on its extension
+     *
+     * @param filename the path of the level
+     * @param visuals  prepare the level graphics if it is true
+     * @return the level stored in the file
+     * @throws IOException if the file can't be read
+     */
+    public static MarioLevel loadAny(String filename, boolean visuals) throws IOException {
+        if (filename.endsWith(EXTENSION)) {
+            return load(filename, visuals);
+        }
+        return new MarioLevel(new String(Files.readAllBytes(Paths.get(filename))), visuals);
+    }
+
+    /**
+     * Save a level in the binary format
+     *
+     * @param level    the level to save, it should not have been played yet
+     * @param filename the path of the binary level
+     * @throws IOException if the file can't be written
+     */
+    public static void save(MarioLevel level, String filename) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(level.getBinarySize());
+        level.writeBinary(buffer);
+        Files.write(Paths.get(filename), buffer.array());
+    }
+
+    /**
+     * Convert a text level to a binary level
+     *
+     * @param textFile   the path of the text level
+     * @param binaryFile the path of the binary level that will be written
+     * @throws IOException if one of the files can't be read or written
+     */
+    public static void convert(String textFile, String binaryFile) throws IOException {
+        save(new MarioLevel(new String(Files.readAllBytes(Paths.get(textFile))), false), binaryFile);
+    }
+
+    /**
+     * Convert all the text levels (lvl-N.txt) in a folder and its sub folders to binary levels, keeping the same
+     * folder structure in the output folder
+     *
+     * @param inputFolder  the folder that contains the text levels
+     * @param outputFolder the folder where the binary levels are written
+     * @return the number of converted levels
+     * @throws IOException if one of the files can't be read or written
+     */
+    public static int convertFolder(String inputFolder, String outputFolder) throws IOException {
+        Path input = Paths.get(inputFolder);
+        Path output = Paths.get(outputFolder);
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(input)) {
+            files = paths.filter(Files::isRegularFile).filter(path -> path.getFileName().toString().startsWith("lvl-"))
+                    .filter(path -> path.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = input.relativize(file).toString();
+            Path target = output.resolve(name.substring(0, name.length() - ".txt".length()) + EXTENSION);
+            Files.createDirectories(target.getParent());
+            convert(file.toString(), target.toString());
+        }
+        return files.size();
+    }
+
+    /**
+     * Convert the text levels to binary levels
+     *
+     * @param args the input folder (default "levels/") and the output folder (default "levels-bin/")
+     * @throws IOException if one of the files can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String inputFolder = args.length > 0 ? args[0] : "levels/";
+        String outputFolder = args.length > 1 ? args[1] : "levels-bin/";
+        int converted = convertFolder(inputFolder, outputFolder);
+        System.out.println("Converted " + converted + " levels from " + inputFolder + " to " + outputFolder);
+    }
+}
@@ -293,14 +293,14 @@ public class MarioLevelModel {
      * @return the map in form of string
      */
     public String getMap() {
-        String result = "";
+        StringBuilder result = new StringBuilder((map.length + 1) * map[0].length);
         for (int y = 0; y < map[0].length; y++) {
             for (int x = 0; x < map.length; x++) {
-                result += map[x][y];
+                result.append(map[x][y]);
             }
-            result += "\n";
+            result.append('\n');
         }
-        return result;
+        return result.toString();
     }
 
     /**
@@ -0,0 +1,225 @@
+package engine.core;
+
+import java.util.ArrayList;
+
+import engine.effects.BrickEffect;
+import engine.effects.CoinEffect;
+import engine.effects.DeathEffect;
+import engine.effects.FireballEffect;
+import engine.effects.SquishEffect;
+import engine.helper.EventType;
+import engine.sprites.BulletBill;
+import engine.sprites.Fireball;
+import engine.sprites.Shell;
+
+/**
+ * Reuses the short lived objects of a MarioWorld (events, fireballs, shells, bullet bills and effects) so a
+ * world that runs for a long time doesn't allocate them on every tick. Every object taken from the pool is
+ * reset to the same state as a newly constructed one. Each world has its own pool, pools are not thread safe.
+ */
+public class MarioPool {
+    /**
+     * the default number of free objects kept for each kind of object
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final ArrayList<MarioEvent> events;
+    private final ArrayList<Fireball> fireballs;
+    private final ArrayList<Shell> shells;
+    private final ArrayList<BulletBill> bulletBills;
+    private final ArrayList<DeathEffect> deathEffects;
+    private final ArrayList<SquishEffect> squishEffects;
+    private final ArrayList<CoinEffect> coinEffects;
+    private final ArrayList<BrickEffect> brickEffects;
+    private final ArrayList<FireballEffect> fireballEffects;
+
+    public MarioPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a pool that keeps a limited number of free objects
+     *
+     * @param capacity the number of free objects kept for each kind of object, 0 never reuses anything
+     */
+    public MarioPool(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.events = new ArrayList<>();
+        this.fireballs = new ArrayList<>();
+        this.shells = new ArrayList<>();
+        this.bulletBills = new ArrayList<>();
+        this.deathEffects = new ArrayList<>();
+        this.squishEffects = new ArrayList<>();
+        this.coinEffects = new ArrayList<>();
+        this.brickEffects = new ArrayList<>();
+        this.fireballEffects = new ArrayList<>();
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    private static <T> T take(ArrayList<T> free) {
+        return free.isEmpty() ? null : free.remove(free.size() - 1);
+    }
+
+    private <T> void put(ArrayList<T> free, T object) {
+        if (free.size() < this.capacity) {
+            free.add(object);
+        }
+    }
+
+    private static void leavePool(MarioSprite sprite) {
+        sprite.pooled = false;
+    }
+
+    public MarioEvent getEvent(EventType eventType, int eventParam, float x, float y, int state, int time) {
+        MarioEvent event = take(this.events);
+        if (event == null) {
+            return new MarioEvent(eventType, eventParam, x, y, state, time);
+        }
+        event.reset(eventType, eventParam, x, y, state, time);
+        return event;
+    }
+
+    public Fireball getFireball(boolean visuals, float x, float y, int facing) {
+        Fireball fireball = take(this.fireballs);
+        if (fireball == null) {
+            return new Fireball(visuals, x, y, facing);
+        }
+        leavePool(fireball);
+        fireball.reset(visuals, x, y, facing);
+        return fireball;
+    }
+
+    public Shell getShell(boolean visuals, float x, float y, int shellType, long spriteCode) {
+        Shell shell = take(this.shells);
+        if (shell == null) {
+            return new Shell(visuals, x, y, shellType, spriteCode);
+        }
+        leavePool(shell);
+        shell.reset(visuals, x, y, shellType, spriteCode);
+        return shell;
+    }
+
+    public BulletBill getBulletBill(boolean visuals, float x, float y, int dir) {
+        BulletBill bulletBill = take(this.bulletBills);
+        if (bulletBill == null) {
+            return new BulletBill(visuals, x, y, dir);
+        }
+        leavePool(bulletBill);
+        bulletBill.reset(visuals, x, y, dir);
+        return bulletBill;
+    }
+
+    public DeathEffect getDeathEffect(float x, float y, boolean flipX, int startIndex, float yv) {
+        DeathEffect effect = take(this.deathEffects);
+        if (effect == null) {
+            return new DeathEffect(x, y, flipX, startIndex, yv);
+        }
+        effect.reset(x, y, flipX, startIndex, yv);
+        return effect;
+    }
+
+    public SquishEffect getSquishEffect(float x, float y) {
+        SquishEffect effect = take(this.squishEffects);
+        if (effect == null) {
+            return new SquishEffect(x, y);
+        }
+        effect.reset(x, y);
+        return effect;
+    }
+
+    public CoinEffect getCoinEffect(float x, float y) {
+        CoinEffect effect = take(this.coinEffects);
+        if (effect == null) {
+            return new CoinEffect(x, y);
+        }
+        effect.reset(x, y);
+        return effect;
+    }
+
+    public BrickEffect getBrickEffect(float x, float y, float xv, float yv) {
+        BrickEffect effect = take(this.brickEffects);
+        if (effect == null) {
+            return new BrickEffect(x, y, xv, yv);
+        }
+        effect.reset(x, y, xv, yv);
+        return effect;
+    }
+
+    public FireballEffect getFireballEffect(float x, float y) {
+        FireballEffect effect = take(this.fireballEffects);
+        if (effect == null) {
+            return new FireballEffect(x, y);
+        }
+        effect.reset(x, y);
+        return effect;
+    }
+
+    /**
+     * Give back an event that nothing refers to anymore
+     *
+     * @param event the event, it will be returned by a later getEvent
+     */
+    public void recycle(MarioEvent event) {
+        this.put(this.events, event);
+    }
+
+    /**
+     * Give back a sprite that was removed from its world, sprites that are not pooled are ignored. A sprite
+     * that is given back more than once is only kept once.
+     *
+     * @param sprite the removed sprite
+     */
+    public void recycle(MarioSprite sprite) {
+        if (sprite.pooled) {
+            return;
+        }
+        if (sprite instanceof Fireball) {
+            sprite.pooled = true;
+            this.put(this.fireballs, (Fireball) sprite);
+        } else if (sprite instanceof Shell) {
+            sprite.pooled = true;
+            this.put(this.shells, (Shell) sprite);
+        } else if (sprite instanceof BulletBill) {
+            sprite.pooled = true;
+            this.put(this.bulletBills, (BulletBill) sprite);
+        }
+    }
+
+    /**
+     * Give back an effect that finished playing, effects that are not pooled are ignored
+     *
+     * @param effect the finished effect
+     */
+    public void recycle(MarioEffect effect) {
+        if (effect instanceof DeathEffect) {
+            this.put(this.deathEffects, (DeathEffect) effect);
+        } else if (effect instanceof SquishEffect) {
+            this.put(this.squishEffects, (SquishEffect) effect);
+        } else if (effect instanceof CoinEffect) {
+            this.put(this.coinEffects, (CoinEffect) effect);
+        } else if (effect instanceof BrickEffect) {
+            this.put(this.brickEffects, (BrickEffect) effect);
+        } else if (effect instanceof FireballEffect) {
+            this.put(this.fireballEffects, (FireballEffect) effect);
+        }
+    }
+
+    /**
+     * Drop all the free objects
+     */
+    public void clear() {
+        this.events.clear();
+        this.fireballs.clear();
+        this.shells.clear();
+        this.bulletBills.clear();
+        this.deathEffects.clear();
+        this.squishEffects.clear();
+        this.coinEffects.clear();
+        this.brickEffects.clear();
+        this.fireballEffects.clear();
+    }
+}
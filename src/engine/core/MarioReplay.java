@@ -0,0 +1,319 @@
+package engine.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+import engine.helper.GameStatus;
+import engine.helper.MarioActions;
+
+/**
+ * A recorded game that can be simulated again without the agent. The simulation is deterministic, so playing
+ * the recorded actions on the recorded level gives back the same game tick by tick.
+ *
+ * The binary log (big endian) is: magic number, timer (int), initial mario state (byte), final game status
+ * (byte), the size of the level (int) followed by the level in the binary format of MarioLevel.writeBinary,
+ * the number of ticks (int), then for every tick the pressed actions (one bit per action in a byte), the tick
+ * number as a varint difference to the previous one, mario x and y (floats) and a byte with mario state
+ * (bits 0-1) and whether mario is on the ground (bit 2).
+ */
+public class MarioReplay {
+    /**
+     * the first four bytes of a replay log ("MRP1")
+     */
+    public static final int MAGIC = 0x4D525031;
+
+    private final byte[] level;
+    private final int timer;
+    private final int marioState;
+    private final GameStatus gameStatus;
+    private final byte[] actions;
+    private final int[] ticks;
+    private final float[] marioX;
+    private final float[] marioY;
+    private final byte[] marioFlags;
+
+    private MarioReplay(byte[] level, int timer, int marioState, GameStatus gameStatus, int numberOfTicks) {
+        this.level = level;
+        this.timer = timer;
+        this.marioState = marioState;
+        this.gameStatus = gameStatus;
+        this.actions = new byte[numberOfTicks];
+        this.ticks = new int[numberOfTicks];
+        this.marioX = new float[numberOfTicks];
+        this.marioY = new float[numberOfTicks];
+        this.marioFlags = new byte[numberOfTicks];
+    }
+
+    /**
+     * Record a game that was played with MarioGame.runGame. The ticks come from the tick log of the result, so
+     * the game can have been played with any event sink, results without a tick log use their agent events.
+     *
+     * @param level      the level string that was played
+     * @param timer      the timer that was given to runGame
+     * @param marioState the initial mario state that was given to runGame
+     * @param result     the result returned by runGame
+     * @return the replay of that game
+     * @throws IllegalArgumentException if the result has no ticks to record but the agent played the game
+     */
+    public static MarioReplay record(String level, int timer, int marioState, MarioResult result) {
+        return record(new MarioLevel(level, false), timer, marioState, result);
+    }
+
+    /**
+     * Record a game that was played with MarioGame.runGame on an already loaded level. The ticks come from the
+     * tick log of the result, so the game can have been played with any event sink, results without a tick log
+     * use their agent events.
+     *
+     * @param level      the level that was played (runGame plays on a copy so it is still unplayed)
+     * @param timer      the timer that was given to runGame
+     * @param marioState the initial mario state that was given to runGame
+     * @param result     the result returned by runGame
+     * @return the replay of that game
+     * @throws IllegalArgumentException if the result has no ticks to record but the agent played the game
+     */
+    public static MarioReplay record(MarioLevel level, int timer, int marioState, MarioResult result) {
+        MarioTickLog log = result.getTickLog();
+        if (log == null) {
+            log = new MarioTickLog(result.getAgentEvents().size());
+            for (MarioAgentEvent event : result.getAgentEvents()) {
+                log.onAgentEvent(event);
+            }
+        }
+        MarioAgentMetrics metrics = result.getAgentMetrics();
+        if (log.size() == 0 && metrics != null && metrics.getNumberOfDecisions() > 0) {
+            throw new IllegalArgumentException("The result has no agent ticks to record, its events were given to a sink");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(level.getBinarySize());
+        level.writeBinary(buffer);
+        MarioReplay replay = new MarioReplay(buffer.array(), timer, marioState, result.getGameStatus(), log.size());
+        for (int i = 0; i < log.size(); i++) {
+            replay.actions[i] = (byte) log.getActionMask(i);
+            replay.ticks[i] = log.getTime(i);
+            replay.marioX[i] = log.getMarioX(i);
+            replay.marioY[i] = log.getMarioY(i);
+            replay.marioFlags[i] = packMario(log.getMarioState(i), log.getMarioOnGround(i));
+        }
+        return replay;
+    }
+
+    private static byte packMario(int marioState, boolean onGround) {
+        return (byte) ((marioState & 3) | (onGround ? 4 : 0));
+    }
+
+    /**
+     * Get the number of recorded agent ticks
+     *
+     * @return the number of actions in the replay
+     */
+    public int getNumberOfTicks() {
+        return this.actions.length;
+    }
+
+    /**
+     * Get the status the recorded game ended with
+     *
+     * @return the recorded game status
+     */
+    public GameStatus getGameStatus() {
+        return this.gameStatus;
+    }
+
+    /**
+     * Get the actions of a recorded tick
+     *
+     * @param tick the index of the tick between 0 and getNumberOfTicks() - 1
+     * @return a new array of the pressed buttons
+     */
+    public boolean[] getActions(int tick) {
+        return MarioActions.unpack(this.actions[tick] & 0xFF);
+    }
+
+    /**
+     * Simulate the replay without verifying it
+     *
+     * @return the result of the simulated game
+     */
+    public MarioResult simulate() {
+        return this.simulate(null, false);
+    }
+
+    /**
+     * Simulate the replay and check every tick against the recording
+     *
+     * @return the index of the first tick that doesn't match the recording, -1 if the whole game (and its final
+     * status) matches, or getNumberOfTicks() if only the final status differs
+     */
+    public int verify() {
+        return this.verify(null);
+    }
+
+    /**
+     * Simulate the replay and check every tick against the recording
+     *
+     * @param killEvents the kill events that were given to the MarioGame that played the recorded game
+     * @return the index of the first tick that doesn't match the recording, -1 if the whole game (and its final
+     * status) matches, or getNumberOfTicks() if only the final status differs
+     */
+    public int verify(MarioEvent[] killEvents) {
+        MarioResult result = this.simulate(killEvents, true);
+        ArrayList<MarioAgentEvent> events = result.getAgentEvents();
+        if (events.size() < this.actions.length) {
+            return events.size();
+        }
+        return result.getGameStatus() == this.gameStatus ? -1 : this.actions.length;
+    }
+
+    private MarioResult simulate(MarioEvent[] killEvents, boolean stopOnMismatch) {
+        MarioWorld world = new MarioWorld(killEvents);
+        world.visuals = false;
+        world.initializeLevel(MarioLevel.readBinary(ByteBuffer.wrap(this.level), false), 1000 * this.timer);
+        world.mario.isLarge = this.marioState > 0;
+        world.mario.isFire = this.marioState > 1;
+        world.update(0);
+
+        ArrayList<MarioEvent> gameEvents = new ArrayList<>();
+        ArrayList<MarioAgentEvent> agentEvents = new ArrayList<>();
+        // the sink keeps the events of each tick before the world can reuse them
+        world.setEventSink(MarioEventSink.collect(gameEvents, new ArrayList<>()));
+        for (int i = 0; i < this.actions.length && world.gameStatus == GameStatus.RUNNING; i++) {
+            int actions = this.actions[i] & 0xFF;
+            world.update(actions);
+            int state = (world.mario.isLarge ? 1 : 0) + (world.mario.isFire ? 1 : 0);
+            if (stopOnMismatch && (world.currentTick != this.ticks[i] || world.mario.x != this.marioX[i] ||
+                    world.mario.y != this.marioY[i] || packMario(state, world.mario.onGround) != this.marioFlags[i])) {
+                break;
+            }
+            agentEvents.add(new MarioAgentEvent(actions, world.mario.x, world.mario.y, state,
+                    world.mario.onGround, world.currentTick));
+        }
+        return new MarioResult(world, gameEvents, agentEvents);
+    }
+
+    /**
+     * Write the replay in its compact binary form
+     *
+     * @return the bytes of the replay log
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(this.level.length + 32 + this.actions.length * 11);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeInt(this.timer);
+            output.writeByte(this.marioState);
+            output.writeByte(this.gameStatus.ordinal());
+            output.writeInt(this.level.length);
+            output.write(this.level);
+            output.writeInt(this.actions.length);
+            int previousTick = 0;
+            for (int i = 0; i < this.actions.length; i++) {
+                output.writeByte(this.actions[i]);
+                int delta = this.ticks[i] - previousTick;
+                while ((delta & ~0x7F) != 0) {
+                    output.writeByte((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                output.writeByte(delta);
+                previousTick = this.ticks[i];
+                output.writeFloat(this.marioX[i]);
+                output.writeFloat(this.marioY[i]);
+                output.writeByte(this.marioFlags[i]);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read a replay written by toBytes
+     *
+     * @param buffer the buffer that contains the replay at its current position
+     * @return the replay
+     * @throws IllegalArgumentException if the buffer doesn't contain a replay
+     */
+    public static MarioReplay fromBytes(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("The buffer doesn't contain a replay");
+            }
+            int timer = buffer.getInt();
+            int marioState = buffer.get();
+            GameStatus gameStatus = GameStatus.values()[buffer.get()];
+            byte[] level = new byte[buffer.getInt()];
+            buffer.get(level);
+            MarioReplay replay = new MarioReplay(level, timer, marioState, gameStatus, buffer.getInt());
+            int previousTick = 0;
+            for (int i = 0; i < replay.actions.length; i++) {
+                replay.actions[i] = buffer.get();
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buffer.get();
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                replay.ticks[i] = previousTick + delta;
+                previousTick = replay.ticks[i];
+                replay.marioX[i] = buffer.getFloat();
+                replay.marioY[i] = buffer.getFloat();
+                replay.marioFlags[i] = buffer.get();
+            }
+            return replay;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("The replay is truncated", e);
+        }
+    }
+
+    /**
+     * Save the replay log to a file
+     *
+     * @param filename the path of the replay log
+     * @throws IOException if the file can't be written
+     */
+    public void save(String filename) throws IOException {
+        Files.write(Paths.get(filename), this.toBytes());
+    }
+
+    /**
+     * Load a replay log from a file
+     *
+     * @param filename the path of the replay log
+     * @return the replay
+     * @throws IOException if the file can't be read or isn't a replay log
+     */
+    public static MarioReplay load(String filename) throws IOException {
+        try {
+            return fromBytes(ByteBuffer.wrap(Files.readAllBytes(Paths.get(filename))));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(filename + " is not a replay log", e);
+        }
+    }
+
+    /**
+     * Verify replay logs and print how long it took to simulate them
+     *
+     * @param args the paths of the replay logs
+     * @throws IOException if one of the logs can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        for (String filename : args) {
+            MarioReplay replay = MarioReplay.load(filename);
+            long start = System.nanoTime();
+            int mismatch = replay.verify();
+            long time = (System.nanoTime() - start) / 1000000;
+            if (mismatch < 0) {
+                System.out.println(filename + ": " + replay.getNumberOfTicks() + " ticks match, " +
+                        replay.getGameStatus() + " (" + time + " ms)");
+            } else {
+                System.out.println(filename + ": differs from the recording at tick " + mismatch + " (" + time + " ms)");
+            }
+        }
+    }
+}
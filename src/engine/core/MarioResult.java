@@ -4,12 +4,14 @@ import java.util.ArrayList;
 
 import engine.helper.EventType;
 import engine.helper.GameStatus;
-import engine.helper.SpriteType;
 
 public class MarioResult {
     private MarioWorld world;
     private ArrayList<MarioEvent> gameEvents;
     private ArrayList<MarioAgentEvent> agentEvents;
+    private MarioEventCounter counter;
+    private MarioAgentMetrics agentMetrics;
+    private MarioTickLog tickLog;
 
     /**
      * Create a mario result object
@@ -22,6 +24,60 @@ public class MarioResult {
         this.world = world;
         this.gameEvents = gameEvents;
         this.agentEvents = agentEvents;
+        this.counter = new MarioEventCounter();
+        for (MarioEvent e : gameEvents) {
+            this.counter.onGameEvent(e);
+        }
+        for (MarioAgentEvent e : agentEvents) {
+            this.counter.onAgentEvent(e);
+        }
+    }
+
+    /**
+     * Create a mario result object from statistics that were counted while the game was played
+     *
+     * @param world       the current level world that is being used. This class uses the world object to get cleaner statistics.
+     * @param counter     the counter that received all the events of the game
+     * @param gameEvents  the game events that were kept (empty if they were given to another sink)
+     * @param agentEvents the agent events that were kept (empty if they were given to another sink)
+     */
+    public MarioResult(MarioWorld world, MarioEventCounter counter, ArrayList<MarioEvent> gameEvents,
+                       ArrayList<MarioAgentEvent> agentEvents) {
+        this(world, counter, gameEvents, agentEvents, null);
+    }
+
+    /**
+     * Create a mario result object of a game that was played by an agent
+     *
+     * @param world        the current level world that is being used. This class uses the world object to get cleaner statistics.
+     * @param counter      the counter that received all the events of the game
+     * @param gameEvents   the game events that were kept (empty if they were given to another sink)
+     * @param agentEvents  the agent events that were kept (empty if they were given to another sink)
+     * @param agentMetrics the decision times and simulation counts of the agent
+     */
+    public MarioResult(MarioWorld world, MarioEventCounter counter, ArrayList<MarioEvent> gameEvents,
+                       ArrayList<MarioAgentEvent> agentEvents, MarioAgentMetrics agentMetrics) {
+        this(world, counter, gameEvents, agentEvents, agentMetrics, null);
+    }
+
+    /**
+     * Create a mario result object of a game that was played by an agent with the packed log of its ticks
+     *
+     * @param world        the current level world that is being used. This class uses the world object to get cleaner statistics.
+     * @param counter      the counter that received all the events of the game
+     * @param gameEvents   the game events that were kept (empty if they were given to another sink)
+     * @param agentEvents  the agent events that were kept (empty if they were given to another sink)
+     * @param agentMetrics the decision times and simulation counts of the agent
+     * @param tickLog      the log that received all the agent events of the game
+     */
+    public MarioResult(MarioWorld world, MarioEventCounter counter, ArrayList<MarioEvent> gameEvents,
+                       ArrayList<MarioAgentEvent> agentEvents, MarioAgentMetrics agentMetrics, MarioTickLog tickLog) {
+        this.world = world;
+        this.gameEvents = gameEvents;
+        this.agentEvents = agentEvents;
+        this.counter = counter;
+        this.agentMetrics = agentMetrics;
+        this.tickLog = tickLog;
     }
 
     /**
@@ -68,7 +124,7 @@ public class MarioResult {
     }
 
     /**
-     * Get all the game events that happen in the game
+     * Get all the game events that happen in the game, the list is empty if the game was played with an event sink
      *
      * @return an arrayList of all possible events that happened in a mario game
      */
@@ -77,7 +133,8 @@ public class MarioResult {
     }
 
     /**
-     * Get all the actions that the agent has been taking during the game
+     * Get all the actions that the agent has been taking during the game, the list is empty if the game was
+     * played with an event sink
      *
      * @return an arraylist that contains all the actions the agent has taken during game play
      */
@@ -85,20 +142,40 @@ public class MarioResult {
         return this.agentEvents;
     }
 
+    /**
+     * Get the packed actions and mario states of every agent tick, it is kept whatever event sink the game had
+     *
+     * @return the tick log or null if the result wasn't created by MarioGame
+     */
+    public MarioTickLog getTickLog() {
+        return this.tickLog;
+    }
+
+    /**
+     * Get the counter that holds the statistics of the game, it doesn't need the event lists
+     *
+     * @return the counters of all the events of the game
+     */
+    public MarioEventCounter getEventCounter() {
+        return this.counter;
+    }
+
+    /**
+     * Get how long the agent took to decide and how many clones and advances it made
+     *
+     * @return the metrics of the agent or null if the game wasn't played by an agent (for example a replay)
+     */
+    public MarioAgentMetrics getAgentMetrics() {
+        return this.agentMetrics;
+    }
+
     /**
      * get the number of enemies killed in the game
      *
      * @return number of enemies killed in the game
      */
     public int getKillsTotal() {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.STOMP_KILL.getValue() || e.getEventType() == EventType.FIRE_KILL.getValue() ||
-                    e.getEventType() == EventType.FALL_KILL.getValue() || e.getEventType() == EventType.SHELL_KILL.getValue()) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getKillsTotal();
     }
 
     /**
@@ -107,13 +184,7 @@ public class MarioResult {
      * @return number of enemies killed by fireballs
      */
     public int getKillsByFire() {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.FIRE_KILL.getValue()) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getCount(EventType.FIRE_KILL);
     }
 
     /**
@@ -122,13 +193,7 @@ public class MarioResult {
      * @return number of enemies killed by stomping
      */
     public int getKillsByStomp() {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.STOMP_KILL.getValue()) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getCount(EventType.STOMP_KILL);
     }
 
     /**
@@ -137,13 +202,7 @@ public class MarioResult {
      * @return number of enemies killed by a koopa shell
      */
     public int getKillsByShell() {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.SHELL_KILL.getValue()) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getCount(EventType.SHELL_KILL);
     }
 
     /**
@@ -153,15 +212,7 @@ public class MarioResult {
      * @return number of a certain type of enemy that has been killed by Mario
      */
     public int getMarioNumKills(int enemyType) {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if ((e.getEventType() == EventType.SHELL_KILL.getValue()
-                    || e.getEventType() == EventType.FIRE_KILL.getValue()
-                    || e.getEventType() == EventType.STOMP_KILL.getValue()) && e.getEventParam() == enemyType) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getMarioNumKills(enemyType);
     }
 
     /**
@@ -170,13 +221,7 @@ public class MarioResult {
      * @return number of times mario got hurt
      */
     public int getMarioNumHurts() {
-        int hurt = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.HURT.getValue()) {
-                hurt += 1;
-            }
-        }
-        return hurt;
+        return this.counter.getCount(EventType.HURT);
     }
 
     /**
@@ -185,13 +230,7 @@ public class MarioResult {
      * @return number of question mark block mario hit
      */
     public int getNumBumpQuestionBlock() {
-        int bump = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() && e.getEventParam() == MarioForwardModel.OBS_QUESTION_BLOCK) {
-                bump += 1;
-            }
-        }
-        return bump;
+        return this.counter.getNumBumpQuestionBlock();
     }
 
     /**
@@ -200,13 +239,7 @@ public class MarioResult {
      * @return number of brick block mario hit
      */
     public int getNumBumpBrick() {
-        int bump = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() && e.getEventParam() == MarioForwardModel.OBS_BRICK) {
-                bump += 1;
-            }
-        }
-        return bump;
+        return this.counter.getNumBumpBrick();
     }
 
     /**
@@ -215,13 +248,7 @@ public class MarioResult {
      * @return the number of enemies that fell from the game screen
      */
     public int getKillsByFall() {
-        int kills = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.FALL_KILL.getValue()) {
-                kills += 1;
-            }
-        }
-        return kills;
+        return this.counter.getCount(EventType.FALL_KILL);
     }
 
     /**
@@ -230,13 +257,7 @@ public class MarioResult {
      * @return the number of jumps performed by mario during the game
      */
     public int getNumJumps() {
-        int jumps = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
-                jumps += 1;
-            }
-        }
-        return jumps;
+        return this.counter.getCount(EventType.JUMP);
     }
 
     /**
@@ -245,19 +266,7 @@ public class MarioResult {
      * @return the maximum x distance traversed mario
      */
     public float getMaxXJump() {
-        float maxXJump = 0;
-        float startX = -100;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
-                startX = e.getMarioX();
-            }
-            if (e.getEventType() == EventType.LAND.getValue()) {
-                if (Math.abs(e.getMarioX() - startX) > maxXJump) {
-                    maxXJump = Math.abs(e.getMarioX() - startX);
-                }
-            }
-        }
-        return maxXJump;
+        return this.counter.getMaxXJump();
     }
 
     /**
@@ -266,19 +275,7 @@ public class MarioResult {
      * @return the maximum amount of frames mario is being in the air
      */
     public int getMaxJumpAirTime() {
-        int maxAirJump = 0;
-        int startTime = -100;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.JUMP.getValue()) {
-                startTime = e.getTime();
-            }
-            if (e.getEventType() == EventType.LAND.getValue()) {
-                if (e.getTime() - startTime > maxAirJump) {
-                    maxAirJump = e.getTime() - startTime;
-                }
-            }
-        }
-        return maxAirJump;
+        return this.counter.getMaxJumpAirTime();
     }
 
     /**
@@ -305,13 +302,7 @@ public class MarioResult {
      * @return the number of collected mushrooms by mario
      */
     public int getNumCollectedMushrooms() {
-        int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == SpriteType.MUSHROOM.getValue()) {
-                collect += 1;
-            }
-        }
-        return collect;
+        return this.counter.getNumCollectedMushrooms();
     }
 
     /**
@@ -320,13 +311,7 @@ public class MarioResult {
      * @return the number of collected fire flowers by mario
      */
     public int getNumCollectedFireflower() {
-        int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == SpriteType.FIRE_FLOWER.getValue()) {
-                collect += 1;
-            }
-        }
-        return collect;
+        return this.counter.getNumCollectedFireflower();
     }
 
     /**
@@ -335,13 +320,7 @@ public class MarioResult {
      * @return the number of collected coins by mario
      */
     public int getNumCollectedTileCoins() {
-        int collect = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.COLLECT.getValue() && e.getEventParam() == MarioForwardModel.OBS_COIN) {
-                collect += 1;
-            }
-        }
-        return collect;
+        return this.counter.getNumCollectedTileCoins();
     }
 
     /**
@@ -350,13 +329,6 @@ public class MarioResult {
      * @return the number of destroyed bricks by large or fire mario
      */
     public int getNumDestroyedBricks() {
-        int bricks = 0;
-        for (MarioEvent e : this.gameEvents) {
-            if (e.getEventType() == EventType.BUMP.getValue() &&
-                    e.getEventParam() == MarioForwardModel.OBS_BRICK && e.getMarioState() > 0) {
-                bricks += 1;
-            }
-        }
-        return bricks;
+        return this.counter.getNumDestroyedBricks();
     }
 }
@@ -0,0 +1,102 @@
+package engine.core;
+
+/**
+ * A set of the spawn codes (MarioLevel.getSpriteCode) of the sprites in a world. It counts how many
+ * sprites have each code so a code stays in the set until the last sprite with it is removed.
+ * Codes are stored in an open addressing table of primitive longs so lookups don't allocate.
+ */
+public class MarioSpawnSet {
+    private long[] codes;
+    private int[] counts;
+    private int size;
+
+    public MarioSpawnSet() {
+        this.codes = new long[16];
+        this.counts = new int[16];
+        this.size = 0;
+    }
+
+    private static int hash(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long code) {
+        int mask = this.codes.length - 1;
+        int slot = hash(code) & mask;
+        while (this.counts[slot] != 0) {
+            if (this.codes[slot] == code) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1 - slot;
+    }
+
+    public boolean contains(long code) {
+        return this.find(code) >= 0;
+    }
+
+    public void add(long code) {
+        int slot = this.find(code);
+        if (slot >= 0) {
+            this.counts[slot] += 1;
+            return;
+        }
+        slot = -1 - slot;
+        this.codes[slot] = code;
+        this.counts[slot] = 1;
+        this.size += 1;
+        if (this.size * 2 > this.codes.length) {
+            this.grow();
+        }
+    }
+
+    public void remove(long code) {
+        int slot = this.find(code);
+        if (slot < 0) {
+            return;
+        }
+        this.counts[slot] -= 1;
+        if (this.counts[slot] > 0) {
+            return;
+        }
+        this.size -= 1;
+        // shift back the following entries of the probe sequence so no lookup stops at the hole
+        int mask = this.codes.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (this.counts[next] != 0) {
+            int home = hash(this.codes[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.codes[hole] = this.codes[next];
+                this.counts[hole] = this.counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.counts[hole] = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    private void grow() {
+        long[] oldCodes = this.codes;
+        int[] oldCounts = this.counts;
+        this.codes = new long[oldCodes.length * 2];
+        this.counts = new int[oldCounts.length * 2];
+        int mask = this.codes.length - 1;
+        for (int i = 0; i < oldCodes.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = hash(oldCodes[i]) & mask;
+                while (this.counts[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.codes[slot] = oldCodes[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
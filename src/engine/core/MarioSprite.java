@@ -9,14 +9,27 @@ public abstract class MarioSprite {
     //    public static SpriteContext spriteContext;
     public SpriteType type = SpriteType.UNDEF;
 
-    public String initialCode;
+    public long initialCode;
     public float x, y, xa, ya;
     public int width, height, facing;
     public boolean alive;
     public MarioWorld world;
 
+    // position of the sprite in the world sprite index, -1 when it is not indexed
+    int indexColumn = -1;
+    int indexOrder;
+    // true while the sprite waits in a MarioPool
+    boolean pooled;
+
     public MarioSprite(float x, float y, SpriteType type) {
-        this.initialCode = "";
+        this.reset(x, y, type);
+    }
+
+    /**
+     * Put the sprite back in the state it has right after the constructor, used to reuse pooled sprites
+     */
+    protected void reset(float x, float y, SpriteType type) {
+        this.initialCode = MarioLevel.NO_SPRITE_CODE;
         this.x = x;
         this.y = y;
         this.xa = 0;
@@ -27,12 +40,48 @@ public abstract class MarioSprite {
         this.width = 16;
         this.height = 16;
         this.type = type;
+        this.indexColumn = -1;
     }
 
     public MarioSprite clone() {
         return null;
     }
 
+    /**
+     * Write the state the sprite needs to go on updating the same way, subclasses write their own fields
+     * after the ones of this class. The type is not written, the world writes it to know what to create.
+     *
+     * @param buffer the buffer the state is appended to
+     */
+    public void saveState(MarioStateBuffer buffer) {
+        buffer.writeLong(this.initialCode);
+        buffer.writeFloat(this.x);
+        buffer.writeFloat(this.y);
+        buffer.writeFloat(this.xa);
+        buffer.writeFloat(this.ya);
+        buffer.writeInt(this.width);
+        buffer.writeInt(this.height);
+        buffer.writeInt(this.facing);
+        buffer.writeBoolean(this.alive);
+    }
+
+    /**
+     * Read back the state written by saveState, in the same order
+     *
+     * @param buffer the buffer, its read position is at the state of this sprite
+     */
+    public void restoreState(MarioStateBuffer buffer) {
+        this.initialCode = buffer.readLong();
+        this.x = buffer.readFloat();
+        this.y = buffer.readFloat();
+        this.xa = buffer.readFloat();
+        this.ya = buffer.readFloat();
+        this.width = buffer.readInt();
+        this.height = buffer.readInt();
+        this.facing = buffer.readInt();
+        this.alive = buffer.readBoolean();
+    }
+
     public void added() {
 
     }
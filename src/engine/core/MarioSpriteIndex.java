@@ -0,0 +1,142 @@
+package engine.core;
+
+import java.util.ArrayList;
+
+/**
+ * Index over the sprites of a MarioWorld. Sprites are bucketed by the 16 pixel column they are in
+ * so collision checks only look at the nearby sprites, and the spawn codes of the sprites are
+ * counted so the world can tell if a level sprite is already spawned without scanning all sprites.
+ * <p>
+ * Queries return sprites in the same order as the world sprite list, so iterating over them gives
+ * the same results as iterating over the whole list and skipping the sprites that are far away.
+ * All the collision checks of the sprites are less than 16 pixels wide.
+ */
+public class MarioSpriteIndex {
+    private final ArrayList<MarioSprite>[] columns;
+    private final MarioSpawnSet spawnCodes;
+
+    /**
+     * Create an empty index
+     *
+     * @param tileWidth the width of the level in tiles, sprites outside the level share the edge columns
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MarioSpriteIndex(int tileWidth) {
+        this.columns = new ArrayList[Math.max(tileWidth, 0) + 2];
+        for (int i = 0; i < this.columns.length; i++) {
+            this.columns[i] = new ArrayList<>();
+        }
+        this.spawnCodes = new MarioSpawnSet();
+    }
+
+    private int getColumn(float x) {
+        int column = (int) Math.floor(x / 16) + 1;
+        if (column < 0) {
+            return 0;
+        }
+        if (column > this.columns.length - 1) {
+            return this.columns.length - 1;
+        }
+        return column;
+    }
+
+    private void add(MarioSprite sprite) {
+        sprite.indexColumn = this.getColumn(sprite.x);
+        this.columns[sprite.indexColumn].add(sprite);
+        if (sprite.initialCode != MarioLevel.NO_SPRITE_CODE) {
+            this.spawnCodes.add(sprite.initialCode);
+        }
+    }
+
+    private void remove(MarioSprite sprite) {
+        this.columns[sprite.indexColumn].remove(sprite);
+        sprite.indexColumn = -1;
+        if (sprite.initialCode != MarioLevel.NO_SPRITE_CODE) {
+            this.spawnCodes.remove(sprite.initialCode);
+        }
+    }
+
+    /**
+     * Move a sprite to the column of its current position, it should be called after the sprite moved.
+     *
+     * @param sprite a sprite that is in the index
+     */
+    public void move(MarioSprite sprite) {
+        if (sprite.indexColumn < 0) {
+            return;
+        }
+        int column = this.getColumn(sprite.x);
+        if (column != sprite.indexColumn) {
+            this.columns[sprite.indexColumn].remove(sprite);
+            this.columns[column].add(sprite);
+            sprite.indexColumn = column;
+        }
+    }
+
+    /**
+     * Bring the index in sync with the world sprite list after sprites were added to or removed from it.
+     *
+     * @param sprites the world sprite list
+     * @param removed the sprites that were removed from the list since the last call
+     */
+    public void update(ArrayList<MarioSprite> sprites, ArrayList<MarioSprite> removed) {
+        for (MarioSprite sprite : removed) {
+            if (sprite.indexColumn >= 0) {
+                this.remove(sprite);
+            }
+        }
+        for (int i = 0; i < sprites.size(); i++) {
+            MarioSprite sprite = sprites.get(i);
+            if (sprite.indexColumn < 0) {
+                this.add(sprite);
+            } else {
+                this.move(sprite);
+            }
+            sprite.indexOrder = i;
+        }
+    }
+
+    /**
+     * Check if any sprite in the index was spawned from a certain level tile
+     *
+     * @param spawnCode the code of the level tile (MarioLevel.getSpriteCode)
+     * @return true if a sprite with that initial code is in the index
+     */
+    public boolean containsSpawnCode(long spawnCode) {
+        return this.spawnCodes.contains(spawnCode);
+    }
+
+    /**
+     * Get all the sprites whose x is between minX and maxX (and maybe a few more around them)
+     *
+     * @param minX   the minimum x position
+     * @param maxX   the maximum x position
+     * @param result the list that is cleared and filled with the sprites in world order
+     */
+    public void getSprites(float minX, float maxX, ArrayList<MarioSprite> result) {
+        result.clear();
+        int maxColumn = this.getColumn(maxX);
+        for (int column = this.getColumn(minX); column <= maxColumn; column++) {
+            for (MarioSprite sprite : this.columns[column]) {
+                insertInOrder(sprite, result);
+            }
+        }
+    }
+
+    /**
+     * Add a sprite to a list that is sorted by the world order if it isn't already there
+     *
+     * @param sprite a sprite that is in the index
+     * @param result a list sorted by the world order
+     */
+    public static void insertInOrder(MarioSprite sprite, ArrayList<MarioSprite> result) {
+        int i = result.size();
+        while (i > 0 && result.get(i - 1).indexOrder > sprite.indexOrder) {
+            i--;
+        }
+        if (i > 0 && result.get(i - 1) == sprite) {
+            return;
+        }
+        result.add(i, sprite);
+    }
+}
@@ -0,0 +1,111 @@
+package engine.core;
+
+import java.util.Arrays;
+
+/**
+ * A growable int array that saved world states are written to and read back from. Floats are stored as their
+ * raw bits and longs as two ints, so a saved state is a plain run of ints with no objects. The buffer is written
+ * at its end and read from a separate position, and it keeps its array when it is truncated so saving the
+ * same amount of state again doesn't allocate.
+ */
+public class MarioStateBuffer {
+    private int[] data;
+    private int size;
+    private int position;
+
+    public MarioStateBuffer() {
+        this(256);
+    }
+
+    /**
+     * Create an empty buffer
+     *
+     * @param capacity the number of ints the buffer holds before it grows
+     */
+    public MarioStateBuffer(int capacity) {
+        this.data = new int[Math.max(16, capacity)];
+    }
+
+    /**
+     * Get the number of ints written to the buffer, it is the position the next write goes to
+     *
+     * @return the size of the buffer
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Drop everything that was written after a position
+     *
+     * @param size the new size, it can't be more than the current size
+     */
+    public void truncate(int size) {
+        if (size < 0 || size > this.size) {
+            throw new IndexOutOfBoundsException("Position " + size + " is not in the buffer");
+        }
+        this.size = size;
+        this.position = Math.min(this.position, size);
+    }
+
+    /**
+     * Get the position the next read starts from
+     *
+     * @return the read position
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Move the read position
+     *
+     * @param position the position of the next read, it can't be more than the size
+     */
+    public void setPosition(int position) {
+        if (position < 0 || position > this.size) {
+            throw new IndexOutOfBoundsException("Position " + position + " is not in the buffer");
+        }
+        this.position = position;
+    }
+
+    public void writeInt(int value) {
+        if (this.size == this.data.length) {
+            this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+        this.data[this.size++] = value;
+    }
+
+    public void writeFloat(float value) {
+        this.writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeBoolean(boolean value) {
+        this.writeInt(value ? 1 : 0);
+    }
+
+    public void writeLong(long value) {
+        this.writeInt((int) (value >>> 32));
+        this.writeInt((int) value);
+    }
+
+    public int readInt() {
+        if (this.position >= this.size) {
+            throw new IndexOutOfBoundsException("The buffer has no more state to read");
+        }
+        return this.data[this.position++];
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(this.readInt());
+    }
+
+    public boolean readBoolean() {
+        return this.readInt() != 0;
+    }
+
+    public long readLong() {
+        long high = this.readInt();
+        return (high << 32) | (this.readInt() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,115 @@
+package engine.core;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the agent events of a game packed in primitive arrays, one entry per agent tick. MarioGame always gives
+ * the agent events to a log, whatever event sink it has, so a result can be recorded as a MarioReplay even when
+ * its event lists are empty. Game events are ignored.
+ */
+public class MarioTickLog implements MarioEventSink {
+    private int size;
+    private byte[] actions;
+    private int[] ticks;
+    private float[] marioX;
+    private float[] marioY;
+    private byte[] marioStates;
+
+    public MarioTickLog() {
+        this(256);
+    }
+
+    /**
+     * Create an empty log
+     *
+     * @param capacity the number of ticks the log holds before it grows
+     */
+    public MarioTickLog(int capacity) {
+        capacity = Math.max(16, capacity);
+        this.actions = new byte[capacity];
+        this.ticks = new int[capacity];
+        this.marioX = new float[capacity];
+        this.marioY = new float[capacity];
+        this.marioStates = new byte[capacity];
+    }
+
+    @Override
+    public void onGameEvent(MarioEvent event) {
+    }
+
+    @Override
+    public void onAgentEvent(MarioAgentEvent event) {
+        if (this.size == this.ticks.length) {
+            int capacity = this.ticks.length * 2;
+            this.actions = Arrays.copyOf(this.actions, capacity);
+            this.ticks = Arrays.copyOf(this.ticks, capacity);
+            this.marioX = Arrays.copyOf(this.marioX, capacity);
+            this.marioY = Arrays.copyOf(this.marioY, capacity);
+            this.marioStates = Arrays.copyOf(this.marioStates, capacity);
+        }
+        this.actions[this.size] = (byte) event.getActionMask();
+        this.ticks[this.size] = event.getTime();
+        this.marioX[this.size] = event.getMarioX();
+        this.marioY[this.size] = event.getMarioY();
+        this.marioStates[this.size] = (byte) ((event.getMarioState() & 3) | (event.getMarioOnGround() ? 4 : 0));
+        this.size++;
+    }
+
+    /**
+     * Get the number of logged agent ticks
+     *
+     * @return the number of ticks in the log
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the actions of a logged tick
+     *
+     * @param index the index of the tick between 0 and size() - 1
+     * @return the actions packed with MarioActions.pack
+     */
+    public int getActionMask(int index) {
+        return this.actions[this.checkIndex(index)] & 0xFF;
+    }
+
+    /**
+     * Get the world tick a logged agent tick happened at
+     *
+     * @param index the index of the tick between 0 and size() - 1
+     * @return the value of MarioWorld.currentTick after the update
+     */
+    public int getTime(int index) {
+        return this.ticks[this.checkIndex(index)];
+    }
+
+    public float getMarioX(int index) {
+        return this.marioX[this.checkIndex(index)];
+    }
+
+    public float getMarioY(int index) {
+        return this.marioY[this.checkIndex(index)];
+    }
+
+    /**
+     * Get the state of mario after a logged tick
+     *
+     * @param index the index of the tick between 0 and size() - 1
+     * @return 0 for small, 1 for large and 2 for fire
+     */
+    public int getMarioState(int index) {
+        return this.marioStates[this.checkIndex(index)] & 3;
+    }
+
+    public boolean getMarioOnGround(int index) {
+        return (this.marioStates[this.checkIndex(index)] & 4) != 0;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Tick " + index + " is not in the log");
+        }
+        return index;
+    }
+}
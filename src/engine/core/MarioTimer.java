@@ -2,12 +2,16 @@ package engine.core;
 
 /**
  * Mario timer object used to control the agents so they won't exceed the allowed time.
+ * The timer keeps a deadline on the System.nanoTime clock, which is monotonic and much finer than milliseconds,
+ * so agents can poll expired() in their inner loop and stop right at their budget.
  *
  * @author AhmedKhalifa
  */
 public class MarioTimer {
-    private long startTimer;
-    private long remainingTime;
+    // more than 100 years, bigger budgets are cut so the deadline doesn't overflow
+    private static final long MAX_NANOS = Long.MAX_VALUE / 4;
+
+    private final long deadline;
 
     /**
      * Start a timer
@@ -15,8 +19,7 @@ public class MarioTimer {
      * @param remainingTime the amount of milliseconds before the timer runs out
      */
     public MarioTimer(long remainingTime) {
-        this.startTimer = System.currentTimeMillis();
-        this.remainingTime = remainingTime;
+        this.deadline = System.nanoTime() + Math.min(Math.max(0, remainingTime), MAX_NANOS / 1000000) * 1000000;
     }
 
     /**
@@ -25,6 +28,24 @@ public class MarioTimer {
      * @return number of milliseconds remaining in that timer.
      */
     public long getRemainingTime() {
-        return Math.max(0, this.remainingTime - (System.currentTimeMillis() - this.startTimer));
+        return this.getRemainingNanos() / 1000000;
+    }
+
+    /**
+     * Get the remaining time in that timer with the precision of System.nanoTime
+     *
+     * @return number of nanoseconds remaining in that timer, 0 if it ran out
+     */
+    public long getRemainingNanos() {
+        return Math.max(0, this.deadline - System.nanoTime());
+    }
+
+    /**
+     * Check if the timer ran out, it is a single read of System.nanoTime so it can be called as often as needed
+     *
+     * @return true once the remaining time reached 0
+     */
+    public boolean expired() {
+        return System.nanoTime() - this.deadline >= 0;
     }
 }
@@ -3,16 +3,21 @@ package engine.core;
 import java.awt.Graphics;
 import java.awt.GraphicsConfiguration;
 import java.util.ArrayList;
+import java.util.Arrays;
 
-import engine.effects.*;
 import engine.graphics.MarioBackground;
 import engine.helper.EventType;
 import engine.helper.GameStatus;
+import engine.helper.MarioActions;
 import engine.helper.SpriteType;
 import engine.helper.TileFeature;
 import engine.sprites.*;
 
 public class MarioWorld {
+    private static final GameStatus[] GAME_STATUSES = GameStatus.values();
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final SpriteType[] SPRITE_TYPES = SpriteType.values();
+
     public GameStatus gameStatus;
     public int pauseTimer = 0;
     public int fireballsOnScreen = 0;
@@ -25,14 +30,20 @@ public class MarioWorld {
     public int currentTick;
     //Status
     public int coins, lives;
+    // the events of the last update, they are reused on the next update unless the world has an event sink
     public ArrayList<MarioEvent> lastFrameEvents;
 
     private MarioEvent[] killEvents;
+    private MarioEventSink eventSink;
+    private MarioPool pool;
     private ArrayList<MarioSprite> sprites;
     private ArrayList<Shell> shellsToCheck;
     private ArrayList<Fireball> fireballsToCheck;
     private ArrayList<MarioSprite> addedSprites;
     private ArrayList<MarioSprite> removedSprites;
+    private MarioSpriteIndex spriteIndex;
+    private ArrayList<MarioSprite> nearSprites;
+    private MarioSprite updatingSprite;
 
     private ArrayList<MarioEffect> effects;
 
@@ -46,9 +57,29 @@ public class MarioWorld {
         this.fireballsToCheck = new ArrayList<>();
         this.addedSprites = new ArrayList<>();
         this.removedSprites = new ArrayList<>();
+        this.nearSprites = new ArrayList<>();
         this.effects = new ArrayList<>();
         this.lastFrameEvents = new ArrayList<>();
         this.killEvents = killEvents;
+        this.pool = new MarioPool();
+    }
+
+    /**
+     * Get the pool the world and its sprites take events, fireballs, shells, bullet bills and effects from
+     *
+     * @return the pool of the world
+     */
+    public MarioPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Change the pool of the world, for example new MarioPool(0) to never reuse objects
+     *
+     * @param pool the new pool of the world
+     */
+    public void setPool(MarioPool pool) {
+        this.pool = pool;
     }
 
     public void initializeVisuals(GraphicsConfiguration graphicsConfig) {
@@ -86,13 +117,35 @@ public class MarioWorld {
     }
 
     public void initializeLevel(String level, int timer) {
+        this.initializeLevel(new MarioLevel(level, this.visuals), timer);
+    }
+
+    /**
+     * Start playing an already loaded level (for example a binary level). The world plays on the level
+     * object it is given, so a level must not be shared between worlds (use MarioLevel.clone for that).
+     *
+     * @param level the level to play, it needs its graphics if the world has visuals
+     * @param timer the time allowed for the level in milliseconds
+     */
+    public void initializeLevel(MarioLevel level, int timer) {
         this.currentTimer = timer;
-        this.level = new MarioLevel(level, this.visuals);
+        this.level = level;
 
         this.mario = new Mario(this.visuals, this.level.marioTileX * 16, this.level.marioTileY * 16);
         this.mario.alive = true;
         this.mario.world = this;
         this.sprites.add(this.mario);
+        this.spriteIndex = new MarioSpriteIndex(this.level.tileWidth);
+        this.spriteIndex.update(this.sprites, this.removedSprites);
+    }
+
+    // the sprite list and kill events are only shared with MarioArrayWorld, which copies them
+    ArrayList<MarioSprite> getSprites() {
+        return this.sprites;
+    }
+
+    MarioEvent[] getKillEvents() {
+        return this.killEvents;
     }
 
     public ArrayList<MarioSprite> getEnemies() {
@@ -127,12 +180,137 @@ public class MarioWorld {
         if (world.mario == null) {
             world.mario = (Mario) this.mario.clone();
         }
+        world.spriteIndex = new MarioSpriteIndex(world.level.tileWidth);
+        world.spriteIndex.update(world.sprites, world.removedSprites);
         //stats
         world.coins = this.coins;
         world.lives = this.lives;
         return world;
     }
 
+    /**
+     * Write the state of the world to a buffer, restoreState brings the world back to it later. The tiles and
+     * spawn ticks are not written, the level records the old value of every one that changes from now on and
+     * the state only keeps the position in that record. The effects only matter for rendering and are not saved.
+     *
+     * @param buffer the buffer the state is appended to
+     */
+    public void saveState(MarioStateBuffer buffer) {
+        buffer.writeInt(this.level.markUndo());
+        buffer.writeInt(this.gameStatus.ordinal());
+        buffer.writeInt(this.pauseTimer);
+        buffer.writeInt(this.fireballsOnScreen);
+        buffer.writeInt(this.currentTimer);
+        buffer.writeFloat(this.cameraX);
+        buffer.writeFloat(this.cameraY);
+        buffer.writeInt(this.currentTick);
+        buffer.writeInt(this.coins);
+        buffer.writeInt(this.lives);
+        // mario is saved even when he is not in the sprite list anymore
+        this.mario.saveState(buffer);
+        buffer.writeInt(this.lastFrameEvents.size());
+        for (MarioEvent event : this.lastFrameEvents) {
+            buffer.writeInt(event.getType().ordinal());
+            buffer.writeInt(event.getEventParam());
+            buffer.writeFloat(event.getMarioX());
+            buffer.writeFloat(event.getMarioY());
+            buffer.writeInt(event.getMarioState());
+            buffer.writeInt(event.getTime());
+        }
+        buffer.writeInt(this.sprites.size());
+        for (MarioSprite sprite : this.sprites) {
+            buffer.writeInt(sprite.type.ordinal());
+            if (sprite != this.mario) {
+                sprite.saveState(buffer);
+            }
+        }
+    }
+
+    /**
+     * Bring the world back to a state written by saveState. The level must be the one the state was saved on and
+     * it must not have been restored to an older state since then. Mario keeps his object, the other sprites are
+     * new objects (taken from the pool when they are pooled).
+     *
+     * @param buffer the buffer, its read position is at the state
+     */
+    public void restoreState(MarioStateBuffer buffer) {
+        this.level.undo(buffer.readInt());
+        this.gameStatus = GAME_STATUSES[buffer.readInt()];
+        this.pauseTimer = buffer.readInt();
+        this.fireballsOnScreen = buffer.readInt();
+        this.currentTimer = buffer.readInt();
+        this.cameraX = buffer.readFloat();
+        this.cameraY = buffer.readFloat();
+        this.currentTick = buffer.readInt();
+        this.coins = buffer.readInt();
+        this.lives = buffer.readInt();
+        this.mario.restoreState(buffer);
+        // mario loses his world when he is removed from the list
+        this.mario.world = this;
+
+        if (this.eventSink == null) {
+            for (MarioEvent event : this.lastFrameEvents) {
+                this.pool.recycle(event);
+            }
+        }
+        this.lastFrameEvents.clear();
+        int eventCount = buffer.readInt();
+        for (int i = 0; i < eventCount; i++) {
+            EventType type = EVENT_TYPES[buffer.readInt()];
+            int param = buffer.readInt();
+            float x = buffer.readFloat();
+            float y = buffer.readFloat();
+            int state = buffer.readInt();
+            int time = buffer.readInt();
+            this.lastFrameEvents.add(this.pool.getEvent(type, param, x, y, state, time));
+        }
+
+        // the current sprites leave the index with the removed ones and go back to the pool
+        for (MarioSprite sprite : this.sprites) {
+            this.removedSprites.add(sprite);
+        }
+        this.sprites.clear();
+        int spriteCount = buffer.readInt();
+        for (int i = 0; i < spriteCount; i++) {
+            SpriteType type = SPRITE_TYPES[buffer.readInt()];
+            if (type == SpriteType.MARIO) {
+                this.sprites.add(this.mario);
+                continue;
+            }
+            MarioSprite sprite = this.createSprite(type);
+            sprite.restoreState(buffer);
+            sprite.world = this;
+            this.sprites.add(sprite);
+        }
+        this.spriteIndex.update(this.sprites, this.removedSprites);
+        for (MarioSprite sprite : this.removedSprites) {
+            this.pool.recycle(sprite);
+        }
+        this.removedSprites.clear();
+    }
+
+    // a sprite of the right class for a saved state, restoreState overwrites everything the constructor set
+    private MarioSprite createSprite(SpriteType type) {
+        switch (type) {
+            case FIREBALL:
+                return this.pool.getFireball(this.visuals, 0, 0, 1);
+            case SHELL:
+                return this.pool.getShell(this.visuals, 0, 0, 0, MarioLevel.NO_SPRITE_CODE);
+            case BULLET_BILL:
+                return this.pool.getBulletBill(this.visuals, 0, 0, 1);
+            case MUSHROOM:
+                return new Mushroom(this.visuals, 0, 0);
+            case LIFE_MUSHROOM:
+                return new LifeMushroom(this.visuals, 0, 0);
+            case FIRE_FLOWER:
+                return new FireFlower(this.visuals, 0, 0);
+            case ENEMY_FLOWER:
+                return new FlowerEnemy(this.visuals, 0, 0);
+            default:
+                return new Enemy(this.visuals, 0, 0, 1, type);
+        }
+    }
+
     public void addEvent(EventType eventType, int eventParam) {
         int marioState = 0;
         if (this.mario.isLarge) {
@@ -141,7 +319,21 @@ public class MarioWorld {
         if (this.mario.isFire) {
             marioState = 2;
         }
-        this.lastFrameEvents.add(new MarioEvent(eventType, eventParam, mario.x, mario.y, marioState, this.currentTick));
+        MarioEvent event = this.pool.getEvent(eventType, eventParam, mario.x, mario.y, marioState, this.currentTick);
+        this.lastFrameEvents.add(event);
+        if (this.eventSink != null) {
+            this.eventSink.onGameEvent(event);
+        }
+    }
+
+    /**
+     * Give every event that happens from now on to a sink as soon as it happens, copies made with clone don't
+     * keep the sink so searching agents never send events to it
+     *
+     * @param eventSink the sink that receives the events or null to stop sending them
+     */
+    public void setEventSink(MarioEventSink eventSink) {
+        this.eventSink = eventSink;
     }
 
     public void addEffect(MarioEffect effect) {
@@ -286,11 +478,91 @@ public class MarioWorld {
         return ret;
     }
 
+    private static int generalizeBlock(int[] table, int tile, int detail) {
+        if (table != null && tile >= 0 && tile < table.length) {
+            return table[tile];
+        }
+        return MarioForwardModel.getBlockValueGeneralization(tile, detail);
+    }
+
+    /**
+     * Write the scene observation into a flat row major buffer, the value of tile (x, y) is at
+     * buffer[y * MarioGame.tileWidth + x]. It gives the same values as getSceneObservation.
+     */
+    public void getSceneObservation(float centerX, float centerY, int detail, int[] buffer) {
+        int[] table = MarioForwardModel.getBlockGeneralizationTable(detail);
+        int startX = (int) centerX / 16 - MarioGame.tileWidth / 2;
+        int startY = (int) centerY / 16 - MarioGame.tileHeight / 2;
+        for (int obsY = 0; obsY < MarioGame.tileHeight; obsY++) {
+            int currentY = Math.max(0, Math.min(startY + obsY, level.tileHeight - 1));
+            int row = obsY * MarioGame.tileWidth;
+            for (int obsX = 0; obsX < MarioGame.tileWidth; obsX++) {
+                int currentX = Math.max(0, Math.min(startX + obsX, level.tileWidth - 1));
+                buffer[row + obsX] = generalizeBlock(table, this.level.getBlock(currentX, currentY), detail);
+            }
+        }
+    }
+
+    private void writeSprites(int centerXInMap, int centerYInMap, int detail, int[] buffer, boolean skipNone) {
+        int[] table = MarioForwardModel.getSpriteGeneralizationTable(detail);
+        for (MarioSprite sprite : sprites) {
+            if (sprite.type == SpriteType.MARIO)
+                continue;
+            int mapX = sprite.getMapX();
+            int mapY = sprite.getMapY();
+            if (mapX >= 0 && mapX > centerXInMap - MarioGame.tileWidth / 2 && mapX < centerXInMap + MarioGame.tileWidth / 2 &&
+                    mapY >= 0 && mapY > centerYInMap - MarioGame.tileHeight / 2 && mapY < centerYInMap + MarioGame.tileHeight / 2) {
+                int obsX = mapX - centerXInMap + MarioGame.tileWidth / 2;
+                int obsY = mapY - centerYInMap + MarioGame.tileHeight / 2;
+                int value = table != null ? table[sprite.type.ordinal()] :
+                        MarioForwardModel.getSpriteTypeGeneralization(sprite.type, detail);
+                if (!skipNone || value != SpriteType.NONE.getValue()) {
+                    buffer[obsY * MarioGame.tileWidth + obsX] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the enemies observation into a flat row major buffer, the value of tile (x, y) is at
+     * buffer[y * MarioGame.tileWidth + x]. It gives the same values as getEnemiesObservation.
+     */
+    public void getEnemiesObservation(float centerX, float centerY, int detail, int[] buffer) {
+        Arrays.fill(buffer, 0, MarioGame.tileWidth * MarioGame.tileHeight, 0);
+        this.writeSprites((int) centerX / 16, (int) centerY / 16, detail, buffer, false);
+    }
+
+    /**
+     * Write the merged observation into a flat row major buffer, the value of tile (x, y) is at
+     * buffer[y * MarioGame.tileWidth + x]. It gives the same values as getMergedObservation.
+     */
+    public void getMergedObservation(float centerX, float centerY, int sceneDetail, int enemiesDetail, int[] buffer) {
+        int[] table = MarioForwardModel.getBlockGeneralizationTable(sceneDetail);
+        int startX = (int) centerX / 16 - MarioGame.tileWidth / 2;
+        int startY = (int) centerY / 16 - MarioGame.tileHeight / 2;
+        for (int obsY = 0; obsY < MarioGame.tileHeight; obsY++) {
+            int row = obsY * MarioGame.tileWidth;
+            for (int obsX = 0; obsX < MarioGame.tileWidth; obsX++) {
+                buffer[row + obsX] = generalizeBlock(table, this.level.getBlock(startX + obsX, startY + obsY), sceneDetail);
+            }
+        }
+        this.writeSprites((int) centerX / 16, (int) centerY / 16, enemiesDetail, buffer, true);
+    }
+
     private boolean isEnemy(MarioSprite sprite) {
         return sprite instanceof Enemy || sprite instanceof FlowerEnemy || sprite instanceof BulletBill;
     }
 
     public void update(boolean[] actions) {
+        this.update(MarioActions.pack(actions));
+    }
+
+    /**
+     * Update the world by one tick using the pressed buttons packed in a mask (see MarioActions.pack)
+     *
+     * @param actions the packed action mask
+     */
+    public void update(int actions) {
         if (this.gameStatus != GameStatus.RUNNING) {
             return;
         }
@@ -326,6 +598,12 @@ public class MarioWorld {
             this.cameraY = 0;
         }
 
+        // a sink might keep the events, so they can only be reused when there is none
+        if (this.eventSink == null) {
+            for (MarioEvent event : this.lastFrameEvents) {
+                this.pool.recycle(event);
+            }
+        }
         this.lastFrameEvents.clear();
 
         this.fireballsOnScreen = 0;
@@ -356,15 +634,8 @@ public class MarioWorld {
 
                 SpriteType type = level.getSpriteType(x, y);
                 if (type != SpriteType.NONE) {
-                    String spriteCode = level.getSpriteCode(x, y);
-                    boolean found = false;
-                    for (MarioSprite sprite : sprites) {
-                        if (sprite.initialCode.equals(spriteCode)) {
-                            found = true;
-                            break;
-                        }
-                    }
-                    if (!found) {
+                    long spriteCode = level.getSpriteCode(x, y);
+                    if (!this.spriteIndex.containsSpawnCode(spriteCode)) {
                         if (this.level.getLastSpawnTick(x, y) != this.currentTick - 1) {
                             MarioSprite sprite = type.spawnSprite(this.visuals, x, y, dir);
                             sprite.initialCode = spriteCode;
@@ -375,22 +646,24 @@ public class MarioWorld {
                 }
 
                 if (dir != 0) {
-                    ArrayList<TileFeature> features = TileFeature.getTileType(this.level.getBlock(x, y));
-                    if (features.contains(TileFeature.SPAWNER)) {
+                    if (TileFeature.hasFeature(this.level.getBlock(x, y), TileFeature.SPAWNER)) {
                         if (this.currentTick % 100 == 0) {
-                            addSprite(new BulletBill(this.visuals, x * 16 + 8 + dir * 8, y * 16 + 15, dir));
+                            addSprite(this.pool.getBulletBill(this.visuals, x * 16 + 8 + dir * 8, y * 16 + 15, dir));
                         }
                     }
                 }
             }
         }
 
-        this.mario.actions = actions;
+        this.mario.setActionMask(actions);
         for (MarioSprite sprite : sprites) {
             if (!sprite.alive) {
                 continue;
             }
+            this.updatingSprite = sprite;
             sprite.update();
+            this.updatingSprite = null;
+            this.spriteIndex.move(sprite);
         }
         for (MarioSprite sprite : sprites) {
             if (!sprite.alive) {
@@ -398,9 +671,12 @@ public class MarioWorld {
             }
             sprite.collideCheck();
         }
+        // stomping moves mario while other sprites check for collisions
+        this.spriteIndex.move(this.mario);
 
         for (Shell shell : shellsToCheck) {
-            for (MarioSprite sprite : sprites) {
+            this.spriteIndex.getSprites(shell.x - 16, shell.x + 16, this.nearSprites);
+            for (MarioSprite sprite : this.nearSprites) {
                 if (sprite != shell && shell.alive && sprite.alive) {
                     if (sprite.shellCollideCheck(shell)) {
                         this.removeSprite(sprite);
@@ -411,11 +687,12 @@ public class MarioWorld {
         shellsToCheck.clear();
 
         for (Fireball fireball : fireballsToCheck) {
-            for (MarioSprite sprite : sprites) {
+            this.spriteIndex.getSprites(fireball.x - 16, fireball.x + 16, this.nearSprites);
+            for (MarioSprite sprite : this.nearSprites) {
                 if (sprite != fireball && fireball.alive && sprite.alive) {
                     if (sprite.fireballCollideCheck(fireball)) {
                         if (this.visuals) {
-                            this.addEffect(new FireballEffect(fireball.x, fireball.y));
+                            this.addEffect(this.pool.getFireballEffect(fireball.x, fireball.y));
                         }
                         this.removeSprite(fireball);
                     }
@@ -424,8 +701,17 @@ public class MarioWorld {
         }
         fireballsToCheck.clear();
 
-        sprites.addAll(0, addedSprites);
-        sprites.removeAll(removedSprites);
+        // addAll copies the list into a new array even when it is empty
+        if (!addedSprites.isEmpty()) {
+            sprites.addAll(0, addedSprites);
+        }
+        if (!removedSprites.isEmpty()) {
+            sprites.removeAll(removedSprites);
+        }
+        this.spriteIndex.update(sprites, removedSprites);
+        for (MarioSprite sprite : removedSprites) {
+            this.pool.recycle(sprite);
+        }
         addedSprites.clear();
         removedSprites.clear();
 
@@ -441,31 +727,31 @@ public class MarioWorld {
 
     public void bump(int xTile, int yTile, boolean canBreakBricks) {
         int block = this.level.getBlock(xTile, yTile);
-        ArrayList<TileFeature> features = TileFeature.getTileType(block);
+        int features = TileFeature.getFeatures(block);
 
-        if (features.contains(TileFeature.BUMPABLE)) {
+        if ((features & TileFeature.BUMPABLE.getMask()) != 0) {
             bumpInto(xTile, yTile - 1);
             this.addEvent(EventType.BUMP, MarioForwardModel.OBS_QUESTION_BLOCK);
             level.setBlock(xTile, yTile, 14);
             level.setShiftIndex(xTile, yTile, 4);
 
-            if (features.contains(TileFeature.SPECIAL)) {
+            if ((features & TileFeature.SPECIAL.getMask()) != 0) {
                 if (!this.mario.isLarge) {
                     addSprite(new Mushroom(this.visuals, xTile * 16 + 9, yTile * 16 + 8));
                 } else {
                     addSprite(new FireFlower(this.visuals, xTile * 16 + 9, yTile * 16 + 8));
                 }
-            } else if (features.contains(TileFeature.LIFE)) {
+            } else if ((features & TileFeature.LIFE.getMask()) != 0) {
                 addSprite(new LifeMushroom(this.visuals, xTile * 16 + 9, yTile * 16 + 8));
             } else {
                 mario.collectCoin();
                 if (this.visuals) {
-                    this.addEffect(new CoinEffect(xTile * 16 + 8, (yTile) * 16));
+                    this.addEffect(this.pool.getCoinEffect(xTile * 16 + 8, (yTile) * 16));
                 }
             }
         }
 
-        if (features.contains(TileFeature.BREAKABLE)) {
+        if ((features & TileFeature.BREAKABLE.getMask()) != 0) {
             bumpInto(xTile, yTile - 1);
             if (canBreakBricks) {
                 this.addEvent(EventType.BUMP, MarioForwardModel.OBS_BRICK);
@@ -473,7 +759,7 @@ public class MarioWorld {
                 if (this.visuals) {
                     for (int xx = 0; xx < 2; xx++) {
                         for (int yy = 0; yy < 2; yy++) {
-                            this.addEffect(new BrickEffect(xTile * 16 + xx * 8 + 4, yTile * 16 + yy * 8 + 4,
+                            this.addEffect(this.pool.getBrickEffect(xTile * 16 + xx * 8 + 4, yTile * 16 + yy * 8 + 4,
                                     (xx * 2 - 1) * 4, (yy * 2 - 1) * 4 - 8));
                         }
                     }
@@ -486,16 +772,21 @@ public class MarioWorld {
 
     public void bumpInto(int xTile, int yTile) {
         int block = level.getBlock(xTile, yTile);
-        if (TileFeature.getTileType(block).contains(TileFeature.PICKABLE)) {
+        if (TileFeature.hasFeature(block, TileFeature.PICKABLE)) {
             this.addEvent(EventType.COLLECT, block);
             this.mario.collectCoin();
             level.setBlock(xTile, yTile, 0);
             if (this.visuals) {
-                this.addEffect(new CoinEffect(xTile * 16 + 8, yTile * 16 + 8));
+                this.addEffect(this.pool.getCoinEffect(xTile * 16 + 8, yTile * 16 + 8));
             }
         }
 
-        for (MarioSprite sprite : sprites) {
+        this.spriteIndex.getSprites(xTile * 16 - 16, xTile * 16 + 32, this.nearSprites);
+        // the sprite that is moving right now might not be in its indexed column yet
+        if (this.updatingSprite != null && this.updatingSprite.indexColumn >= 0) {
+            MarioSpriteIndex.insertInOrder(this.updatingSprite, this.nearSprites);
+        }
+        for (MarioSprite sprite : this.nearSprites) {
             sprite.bumpCheck(xTile, yTile);
         }
     }
@@ -519,7 +810,7 @@ public class MarioWorld {
         }
         for (int i = 0; i < this.effects.size(); i++) {
             if (this.effects.get(i).life <= 0) {
-                this.effects.remove(i);
+                this.pool.recycle(this.effects.remove(i));
                 i--;
                 continue;
             }
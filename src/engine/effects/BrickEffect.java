@@ -10,6 +10,10 @@ public class BrickEffect extends MarioEffect {
         super(x, y, xv, yv, 0, 3, 16, 10);
     }
 
+    public void reset(float x, float y, float xv, float yv) {
+        super.reset(x, y, xv, yv, 0, 3, 16, 10);
+    }
+
     @Override
     public void render(Graphics og, float cameraX, float cameraY) {
         this.graphics.index = this.startingIndex + this.life % 4;
@@ -9,6 +9,10 @@ public class CoinEffect extends MarioEffect {
         super(x, y, 0, -8f, 0, 1, 0, 16);
     }
 
+    public void reset(float x, float y) {
+        super.reset(x, y, 0, -8f, 0, 1, 0, 16);
+    }
+
     @Override
     public void render(Graphics og, float cameraX, float cameraY) {
         this.graphics.index = this.startingIndex + this.life & 3;
@@ -7,4 +7,9 @@ public class DeathEffect extends MarioEffect {
         super(x, y, 0, yv, 0, 1f, startIndex, 30);
         this.graphics.flipX = flipX;
     }
+
+    public void reset(float x, float y, boolean flipX, int startIndex, float yv) {
+        super.reset(x, y, 0, yv, 0, 1f, startIndex, 30);
+        this.graphics.flipX = flipX;
+    }
 }
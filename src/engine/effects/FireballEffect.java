@@ -9,6 +9,10 @@ public class FireballEffect extends MarioEffect {
         super(x, y, 0, 0, 0, 0, 32, 8);
     }
 
+    public void reset(float x, float y) {
+        super.reset(x, y, 0, 0, 0, 0, 32, 8);
+    }
+
     @Override
     public void render(Graphics og, float cameraX, float cameraY) {
         this.graphics.index = this.startingIndex + (8 - this.life);
@@ -6,4 +6,8 @@ public class SquishEffect extends MarioEffect {
     public SquishEffect(float x, float y) {
         super(x, y, 0, 0, 0, 0, 40, 8);
     }
+
+    public void reset(float x, float y) {
+        super.reset(x, y, 0, 0, 0, 0, 40, 8);
+    }
 }
@@ -10,6 +10,13 @@ public abstract class MarioGraphics {
     public int width, height;
 
     public MarioGraphics() {
+        this.reset();
+    }
+
+    /**
+     * Put back the values the graphics have right after the constructor
+     */
+    public void reset() {
         this.visible = true;
         this.alpha = 1;
         this.originX = this.originY = 0;
@@ -30,4 +30,71 @@ public enum MarioActions {
     public static MarioActions getAction(int value) {
         return MarioActions.values()[value];
     }
+
+    /**
+     * the bit of this action in a packed action mask
+     */
+    public int getMask() {
+        return 1 << value;
+    }
+
+    /**
+     * the number of different packed action masks (all combinations of buttons)
+     */
+    public static int numberOfCombinations() {
+        return 1 << numberOfActions();
+    }
+
+    /**
+     * pack some buttons into a single mask where the bit of each action is 1 &lt;&lt; action.getValue()
+     */
+    public static int pack(MarioActions... actions) {
+        int mask = 0;
+        for (MarioActions action : actions) {
+            mask |= action.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * pack a button array (indexed by action value) into a single mask
+     */
+    public static int pack(boolean[] actions) {
+        int mask = 0;
+        for (int i = 0; i < actions.length && i < numberOfActions(); i++) {
+            if (actions[i]) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * unpack a mask into a new button array indexed by action value
+     */
+    public static boolean[] unpack(int mask) {
+        return unpack(mask, new boolean[numberOfActions()]);
+    }
+
+    /**
+     * unpack a mask into an existing button array indexed by action value
+     */
+    public static boolean[] unpack(int mask, boolean[] actions) {
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = (mask & (1 << i)) != 0;
+        }
+        return actions;
+    }
+
+    public static boolean isPressed(int mask, MarioActions action) {
+        return (mask & action.getMask()) != 0;
+    }
+
+    public static int press(int mask, MarioActions action) {
+        return mask | action.getMask();
+    }
+
+    public static int release(int mask, MarioActions action) {
+        return mask & ~action.getMask();
+    }
 }
@@ -14,6 +14,61 @@ public enum TileFeature {
     ANIMATED,
     SPAWNER;
 
+    private static final int[] FEATURE_TABLE = new int[256];
+
+    static {
+        for (int index = 0; index < FEATURE_TABLE.length; index++) {
+            int mask = 0;
+            for (TileFeature feature : getTileType(index)) {
+                mask |= feature.getMask();
+            }
+            FEATURE_TABLE[index] = mask;
+        }
+    }
+
+    /**
+     * Get the bit that represents this feature in the masks returned by getFeatures
+     *
+     * @return a mask with only the bit of this feature set
+     */
+    public int getMask() {
+        return 1 << this.ordinal();
+    }
+
+    /**
+     * Get all the features of a tile as a bitmask without allocating. It returns the same
+     * features as getTileType but from a precomputed table.
+     *
+     * @param index the tile index
+     * @return a bitmask of the tile features (check using TileFeature.getMask())
+     */
+    public static int getFeatures(int index) {
+        if (index < 0 || index >= FEATURE_TABLE.length) {
+            return 0;
+        }
+        return FEATURE_TABLE[index];
+    }
+
+    public static boolean hasFeature(int index, int mask) {
+        return (getFeatures(index) & mask) != 0;
+    }
+
+    public static boolean hasFeature(int index, TileFeature feature) {
+        return (getFeatures(index) & feature.getMask()) != 0;
+    }
+
+    public static boolean isBlockAll(int index) {
+        return hasFeature(index, BLOCK_ALL);
+    }
+
+    public static boolean isBlockUpper(int index) {
+        return hasFeature(index, BLOCK_UPPER);
+    }
+
+    public static boolean isBlockLower(int index) {
+        return hasFeature(index, BLOCK_LOWER);
+    }
+
     public static ArrayList<TileFeature> getTileType(int index) {
         ArrayList<TileFeature> features = new ArrayList<>();
         switch (index) {
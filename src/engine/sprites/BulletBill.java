@@ -3,7 +3,6 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
-import engine.effects.DeathEffect;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -14,13 +13,27 @@ public class BulletBill extends MarioSprite {
 
     public BulletBill(boolean visuals, float x, float y, int dir) {
         super(x, y, SpriteType.BULLET_BILL);
+        this.reset(visuals, x, y, dir);
+    }
+
+    /**
+     * Put the bullet bill back in the state it has right after the constructor, used to reuse pooled bullet bills
+     */
+    public void reset(boolean visuals, float x, float y, int dir) {
+        super.reset(x, y, SpriteType.BULLET_BILL);
         this.width = 4;
         this.height = 12;
         this.ya = -5;
         this.facing = dir;
 
-        if (visuals) {
-            this.graphics = new MarioImage(Assets.enemies, 40);
+        if (!visuals) {
+            this.graphics = null;
+        } else {
+            if (this.graphics == null) {
+                this.graphics = new MarioImage(Assets.enemies, 40);
+            }
+            this.graphics.reset();
+            this.graphics.index = 40;
             this.graphics.originX = 8;
             this.graphics.originY = 31;
             this.graphics.width = 16;
@@ -70,7 +83,7 @@ public class BulletBill extends MarioSprite {
                 if (world.mario.ya > 0 && yMarioD <= 0 && (!world.mario.onGround || !world.mario.wasOnGround)) {
                     world.mario.stomp(this);
                     if (this.graphics != null) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y - 7, this.graphics.flipX, 43, 0));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y - 7, this.graphics.flipX, 43, 0));
                     }
                     this.world.removeSprite(this);
                 } else {
@@ -111,7 +124,7 @@ public class BulletBill extends MarioSprite {
         if (xD > -16 && xD < 16) {
             if (yD > -height && yD < shell.height) {
                 if (this.graphics != null) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y - 7, this.graphics.flipX, 43, -1));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y - 7, this.graphics.flipX, 43, -1));
                 }
                 this.world.addEvent(EventType.SHELL_KILL, this.type.getValue());
                 this.world.removeSprite(this);
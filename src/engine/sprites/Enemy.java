@@ -3,8 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
-import engine.effects.DeathEffect;
-import engine.effects.SquishEffect;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -53,6 +52,14 @@ public class Enemy extends MarioSprite {
         }
     }
 
+    public boolean isOnGround() {
+        return this.onGround;
+    }
+
+    public boolean isWinged() {
+        return this.winged;
+    }
+
     @Override
     public MarioSprite clone() {
         Enemy e = new Enemy(false, this.x, this.y, this.facing, this.type);
@@ -68,6 +75,24 @@ public class Enemy extends MarioSprite {
         return e;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeBoolean(this.onGround);
+        buffer.writeBoolean(this.avoidCliffs);
+        buffer.writeBoolean(this.winged);
+        buffer.writeBoolean(this.noFireballDeath);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.onGround = buffer.readBoolean();
+        this.avoidCliffs = buffer.readBoolean();
+        this.winged = buffer.readBoolean();
+        this.noFireballDeath = buffer.readBoolean();
+    }
+
     public void collideCheck() {
         if (!this.alive) {
             return;
@@ -85,12 +110,12 @@ public class Enemy extends MarioSprite {
                         ya = 0;
                     } else {
                         if (type == SpriteType.GREEN_KOOPA || type == SpriteType.GREEN_KOOPA_WINGED) {
-                            this.world.addSprite(new Shell(this.graphics != null, x, y, 1, this.initialCode));
+                            this.world.addSprite(this.world.getPool().getShell(this.graphics != null, x, y, 1, this.initialCode));
                         } else if (type == SpriteType.RED_KOOPA || type == SpriteType.RED_KOOPA_WINGED) {
-                            this.world.addSprite(new Shell(this.graphics != null, x, y, 0, this.initialCode));
+                            this.world.addSprite(this.world.getPool().getShell(this.graphics != null, x, y, 0, this.initialCode));
                         } else if (type == SpriteType.GOOMBA || type == SpriteType.GOOMBA_WINGED) {
                             if (this.graphics != null) {
-                                this.world.addEffect(new SquishEffect(this.x, this.y - 7));
+                                this.world.addEffect(this.world.getPool().getSquishEffect(this.x, this.y - 7));
                             }
                         }
                         this.world.addEvent(EventType.STOMP_KILL, this.type.getValue());
@@ -283,13 +308,13 @@ public class Enemy extends MarioSprite {
                 this.world.addEvent(EventType.SHELL_KILL, this.type.getValue());
                 if (this.graphics != null) {
                     if (this.type == SpriteType.GREEN_KOOPA || this.type == SpriteType.GREEN_KOOPA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
                     } else if (this.type == SpriteType.RED_KOOPA || this.type == SpriteType.RED_KOOPA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
                     } else if (this.type == SpriteType.GOOMBA || this.type == SpriteType.GOOMBA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
                     } else if (this.type == SpriteType.SPIKY || this.type == SpriteType.SPIKY_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 45, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 45, -5));
                     }
                 }
                 this.world.removeSprite(this);
@@ -317,11 +342,11 @@ public class Enemy extends MarioSprite {
                 this.world.addEvent(EventType.FIRE_KILL, this.type.getValue());
                 if (this.graphics != null) {
                     if (this.type == SpriteType.GREEN_KOOPA || this.type == SpriteType.GREEN_KOOPA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
                     } else if (this.type == SpriteType.RED_KOOPA || this.type == SpriteType.RED_KOOPA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
                     } else if (this.type == SpriteType.GOOMBA || this.type == SpriteType.GOOMBA_WINGED) {
-                        this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
+                        this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
                     }
                 }
                 this.world.removeSprite(this);
@@ -341,13 +366,13 @@ public class Enemy extends MarioSprite {
             ya = -5;
             if (this.graphics != null) {
                 if (this.type == SpriteType.GREEN_KOOPA || this.type == SpriteType.GREEN_KOOPA_WINGED) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 42, -5));
                 } else if (this.type == SpriteType.RED_KOOPA || this.type == SpriteType.RED_KOOPA_WINGED) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 41, -5));
                 } else if (this.type == SpriteType.GOOMBA || this.type == SpriteType.GOOMBA_WINGED) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 44, -5));
                 } else if (this.type == SpriteType.SPIKY || this.type == SpriteType.SPIKY_WINGED) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 45, -5));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 45, -5));
                 }
             }
             this.world.removeSprite(this);
@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -27,6 +28,10 @@ public class FireFlower extends MarioSprite {
         }
     }
 
+    public int getLife() {
+        return this.life;
+    }
+
     @Override
     public MarioSprite clone() {
         FireFlower f = new FireFlower(false, x, y);
@@ -40,6 +45,18 @@ public class FireFlower extends MarioSprite {
         return f;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeInt(this.life);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.life = buffer.readInt();
+    }
+
     @Override
     public void collideCheck() {
         if (!this.alive) {
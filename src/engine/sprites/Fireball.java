@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.SpriteType;
@@ -18,13 +19,29 @@ public class Fireball extends MarioSprite {
 
     public Fireball(boolean visuals, float x, float y, int facing) {
         super(x, y, SpriteType.FIREBALL);
+        this.reset(visuals, x, y, facing);
+    }
+
+    /**
+     * Put the fireball back in the state it has right after the constructor, used to reuse pooled fireballs
+     */
+    public void reset(boolean visuals, float x, float y, int facing) {
+        super.reset(x, y, SpriteType.FIREBALL);
         this.facing = facing;
         this.ya = 4;
         this.width = 4;
         this.height = 8;
+        this.onGround = false;
+        this.anim = 0;
 
-        if (visuals) {
-            this.graphics = new MarioImage(Assets.particles, 24);
+        if (!visuals) {
+            this.graphics = null;
+        } else {
+            if (this.graphics == null) {
+                this.graphics = new MarioImage(Assets.particles, 24);
+            }
+            this.graphics.reset();
+            this.graphics.index = 24;
             this.graphics.originX = 8;
             this.graphics.originY = 8;
             this.graphics.width = 16;
@@ -32,6 +49,10 @@ public class Fireball extends MarioSprite {
         }
     }
 
+    public boolean isOnGround() {
+        return this.onGround;
+    }
+
     @Override
     public MarioSprite clone() {
         Fireball f = new Fireball(false, this.x, this.y, this.facing);
@@ -44,6 +65,18 @@ public class Fireball extends MarioSprite {
         return f;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeBoolean(this.onGround);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.onGround = buffer.readBoolean();
+    }
+
     private boolean move(float xa, float ya) {
         while (xa > 8) {
             if (!move(8, 0))
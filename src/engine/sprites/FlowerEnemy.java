@@ -1,6 +1,7 @@
 package engine.sprites;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateBuffer;
 import engine.helper.SpriteType;
 
 public class FlowerEnemy extends Enemy {
@@ -25,6 +26,14 @@ public class FlowerEnemy extends Enemy {
         }
     }
 
+    public float getYStart() {
+        return this.yStart;
+    }
+
+    public int getWaitTime() {
+        return this.waitTime;
+    }
+
     @Override
     public MarioSprite clone() {
         FlowerEnemy sprite = new FlowerEnemy(false, this.x, this.y);
@@ -42,6 +51,20 @@ public class FlowerEnemy extends Enemy {
         return sprite;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeFloat(this.yStart);
+        buffer.writeInt(this.waitTime);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.yStart = buffer.readFloat();
+        this.waitTime = buffer.readInt();
+    }
+
     @Override
     public void update() {
         if (!this.alive) {
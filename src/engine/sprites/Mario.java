@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -14,6 +15,8 @@ public class Mario extends MarioSprite {
     public boolean isLarge, isFire;
     public boolean onGround, wasOnGround, isDucking, canShoot, mayJump;
     public boolean[] actions = null;
+    // the pressed buttons packed as a mask (see MarioActions.pack), the engine reads this one
+    public int actionMask = 0;
     public int jumpTime = 0;
 
     private float xJumpSpeed, yJumpSpeed = 0;
@@ -41,6 +44,23 @@ public class Mario extends MarioSprite {
         }
     }
 
+    public float getXJumpSpeed() {
+        return this.xJumpSpeed;
+    }
+
+    public float getYJumpSpeed() {
+        return this.yJumpSpeed;
+    }
+
+    public int getInvulnerableTime() {
+        return this.invulnerableTime;
+    }
+
+    // the x position of the last jump, or -100 after landing
+    public float getXJumpStart() {
+        return this.xJumpStart;
+    }
+
     @Override
     public MarioSprite clone() {
         Mario sprite = new Mario(false, x - 8, y - 15);
@@ -57,9 +77,9 @@ public class Mario extends MarioSprite {
         sprite.isDucking = isDucking;
         sprite.canShoot = canShoot;
         sprite.mayJump = mayJump;
-        sprite.actions = new boolean[this.actions.length];
-        for (int i = 0; i < this.actions.length; i++) {
-            sprite.actions[i] = this.actions[i];
+        sprite.actionMask = this.actionMask;
+        if (this.actions != null) {
+            sprite.actions = this.actions.clone();
         }
         sprite.xJumpSpeed = xJumpSpeed;
         sprite.yJumpSpeed = yJumpSpeed;
@@ -69,6 +89,59 @@ public class Mario extends MarioSprite {
         return sprite;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeBoolean(this.isLarge);
+        buffer.writeBoolean(this.isFire);
+        buffer.writeBoolean(this.onGround);
+        buffer.writeBoolean(this.wasOnGround);
+        buffer.writeBoolean(this.isDucking);
+        buffer.writeBoolean(this.canShoot);
+        buffer.writeBoolean(this.mayJump);
+        buffer.writeInt(this.actionMask);
+        buffer.writeInt(this.jumpTime);
+        buffer.writeFloat(this.xJumpSpeed);
+        buffer.writeFloat(this.yJumpSpeed);
+        buffer.writeInt(this.invulnerableTime);
+        buffer.writeBoolean(this.oldLarge);
+        buffer.writeBoolean(this.oldFire);
+        buffer.writeFloat(this.xJumpStart);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.isLarge = buffer.readBoolean();
+        this.isFire = buffer.readBoolean();
+        this.onGround = buffer.readBoolean();
+        this.wasOnGround = buffer.readBoolean();
+        this.isDucking = buffer.readBoolean();
+        this.canShoot = buffer.readBoolean();
+        this.mayJump = buffer.readBoolean();
+        this.setActionMask(buffer.readInt());
+        this.jumpTime = buffer.readInt();
+        this.xJumpSpeed = buffer.readFloat();
+        this.yJumpSpeed = buffer.readFloat();
+        this.invulnerableTime = buffer.readInt();
+        this.oldLarge = buffer.readBoolean();
+        this.oldFire = buffer.readBoolean();
+        this.xJumpStart = buffer.readFloat();
+    }
+
+    /**
+     * Set the pressed buttons, the mask is unpacked into the actions array so both stay the same
+     *
+     * @param actionMask the buttons packed with MarioActions.pack
+     */
+    public void setActionMask(int actionMask) {
+        this.actionMask = actionMask;
+        if (this.actions == null || this.actions.length != MarioActions.numberOfActions()) {
+            this.actions = new boolean[MarioActions.numberOfActions()];
+        }
+        MarioActions.unpack(actionMask, this.actions);
+    }
+
     private boolean move(float xa, float ya) {
         while (xa > 8) {
             if (!move(8, 0))
@@ -161,7 +234,7 @@ public class Mario extends MarioSprite {
         boolean blocking = world.level.isBlocking(xTile, yTile, xa, ya);
         int block = world.level.getBlock(xTile, yTile);
 
-        if (TileFeature.getTileType(block).contains(TileFeature.PICKABLE)) {
+        if (TileFeature.hasFeature(block, TileFeature.PICKABLE)) {
             this.world.addEvent(EventType.COLLECT, block);
             this.collectCoin();
             world.level.setBlock(xTile, yTile, 0);
@@ -257,10 +330,12 @@ public class Mario extends MarioSprite {
         }
         this.wasOnGround = this.onGround;
 
-        float sideWaysSpeed = actions[MarioActions.SPEED.getValue()] ? 1.2f : 0.6f;
+        boolean speed = MarioActions.isPressed(actionMask, MarioActions.SPEED);
+        boolean jump = MarioActions.isPressed(actionMask, MarioActions.JUMP);
+        float sideWaysSpeed = speed ? 1.2f : 0.6f;
 
         if (onGround) {
-            isDucking = actions[MarioActions.DOWN.getValue()] && isLarge;
+            isDucking = MarioActions.isPressed(actionMask, MarioActions.DOWN) && isLarge;
         }
 
         if (isLarge) {
@@ -276,7 +351,7 @@ public class Mario extends MarioSprite {
             facing = -1;
         }
 
-        if (actions[MarioActions.JUMP.getValue()] || (jumpTime < 0 && !onGround)) {
+        if (jump || (jumpTime < 0 && !onGround)) {
             if (jumpTime < 0) {
                 xa = xJumpSpeed;
                 ya = -jumpTime * yJumpSpeed;
@@ -301,25 +376,25 @@ public class Mario extends MarioSprite {
             jumpTime = 0;
         }
 
-        if (actions[MarioActions.LEFT.getValue()] && !isDucking) {
+        if (MarioActions.isPressed(actionMask, MarioActions.LEFT) && !isDucking) {
             xa -= sideWaysSpeed;
             if (jumpTime >= 0)
                 facing = -1;
         }
 
-        if (actions[MarioActions.RIGHT.getValue()] && !isDucking) {
+        if (MarioActions.isPressed(actionMask, MarioActions.RIGHT) && !isDucking) {
             xa += sideWaysSpeed;
             if (jumpTime >= 0)
                 facing = 1;
         }
 
-        if (actions[MarioActions.SPEED.getValue()] && canShoot && isFire && world.fireballsOnScreen < 2) {
-            world.addSprite(new Fireball(this.graphics != null, x + facing * 6, y - 20, facing));
+        if (speed && canShoot && isFire && world.fireballsOnScreen < 2) {
+            world.addSprite(world.getPool().getFireball(this.graphics != null, x + facing * 6, y - 20, facing));
         }
 
-        canShoot = !actions[MarioActions.SPEED.getValue()];
+        canShoot = !speed;
 
-        mayJump = onGround && !actions[MarioActions.JUMP.getValue()];
+        mayJump = onGround && !jump;
 
         if (Math.abs(xa) < 0.5f) {
             xa = 0;
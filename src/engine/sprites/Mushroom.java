@@ -3,6 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -32,6 +33,14 @@ public class Mushroom extends MarioSprite {
         }
     }
 
+    public int getLife() {
+        return this.life;
+    }
+
+    public boolean isOnGround() {
+        return this.onGround;
+    }
+
     @Override
     public MarioSprite clone() {
         Mushroom m = new Mushroom(false, this.x, this.y);
@@ -46,6 +55,20 @@ public class Mushroom extends MarioSprite {
         return m;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeBoolean(this.onGround);
+        buffer.writeInt(this.life);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.onGround = buffer.readBoolean();
+        this.life = buffer.readInt();
+    }
+
     public void collideCheck() {
         if (!this.alive) {
             return;
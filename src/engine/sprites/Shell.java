@@ -3,7 +3,7 @@ package engine.sprites;
 import java.awt.Graphics;
 
 import engine.core.MarioSprite;
-import engine.effects.DeathEffect;
+import engine.core.MarioStateBuffer;
 import engine.graphics.MarioImage;
 import engine.helper.Assets;
 import engine.helper.EventType;
@@ -18,8 +18,16 @@ public class Shell extends MarioSprite {
 
     private MarioImage graphics;
 
-    public Shell(boolean visuals, float x, float y, int shellType, String spriteCode) {
+    public Shell(boolean visuals, float x, float y, int shellType, long spriteCode) {
         super(x, y, SpriteType.SHELL);
+        this.reset(visuals, x, y, shellType, spriteCode);
+    }
+
+    /**
+     * Put the shell back in the state it has right after the constructor, used to reuse pooled shells
+     */
+    public void reset(boolean visuals, float x, float y, int shellType, long spriteCode) {
+        super.reset(x, y, SpriteType.SHELL);
 
         this.width = 4;
         this.height = 12;
@@ -27,15 +35,30 @@ public class Shell extends MarioSprite {
         this.ya = -5;
         this.shellType = shellType;
         this.initialCode = spriteCode;
+        this.onGround = false;
 
-        if (visuals) {
-            this.graphics = new MarioImage(Assets.enemies, shellType * 8 + 3);
+        if (!visuals) {
+            this.graphics = null;
+        } else {
+            if (this.graphics == null) {
+                this.graphics = new MarioImage(Assets.enemies, shellType * 8 + 3);
+            }
+            this.graphics.reset();
+            this.graphics.index = shellType * 8 + 3;
             this.graphics.originX = 8;
             this.graphics.originY = 31;
             this.graphics.width = 16;
         }
     }
 
+    public int getShellType() {
+        return this.shellType;
+    }
+
+    public boolean isOnGround() {
+        return this.onGround;
+    }
+
     @Override
     public MarioSprite clone() {
         Shell sprite = new Shell(false, this.x, this.y, this.shellType, this.initialCode);
@@ -48,6 +71,23 @@ public class Shell extends MarioSprite {
         return sprite;
     }
 
+    @Override
+    public void saveState(MarioStateBuffer buffer) {
+        super.saveState(buffer);
+        buffer.writeInt(this.shellType);
+        buffer.writeBoolean(this.onGround);
+    }
+
+    @Override
+    public void restoreState(MarioStateBuffer buffer) {
+        super.restoreState(buffer);
+        this.shellType = buffer.readInt();
+        this.onGround = buffer.readBoolean();
+        if (this.graphics != null) {
+            this.graphics.index = this.shellType * 8 + 3;
+        }
+    }
+
     @Override
     public void update() {
         if (!this.alive) return;
@@ -111,7 +151,7 @@ public class Shell extends MarioSprite {
                 xa = fireball.facing * 2;
                 ya = -5;
                 if (this.graphics != null) {
-                    this.world.addEffect(new DeathEffect(this.x, this.y, this.graphics.flipX, 41 + this.shellType, -5));
+                    this.world.addEffect(this.world.getPool().getDeathEffect(this.x, this.y, this.graphics.flipX, 41 + this.shellType, -5));
                 }
                 this.world.removeSprite(this);
                 return true;
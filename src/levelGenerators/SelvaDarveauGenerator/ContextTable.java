@@ -0,0 +1,103 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.util.Arrays;
+
+public class ContextTable {
+    // Every distinct context (a fixed number of consecutive slice ids) is stored once in a flat array
+    // and referred to by its id, the hash table only keeps context ids.
+    private final int length;
+    private int[] contexts;
+    private int size;
+    private int[] slots;
+
+    public ContextTable(int length) {
+        this.length = length;
+        contexts = new int[16 * length];
+        size = 0;
+        slots = new int[32];
+        Arrays.fill(slots, -1);
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    // Gets the id of the context made of the "length" slices ending at history[end - 1], or -1 if unseen.
+    public int getId(int[] history, int end) {
+        return slots[findSlot(history, end)];
+    }
+
+    // Gets the id of the context made of the "length" slices ending at history[end - 1], adding it if unseen.
+    public int intern(int[] history, int end) {
+        int slot = findSlot(history, end);
+        if (slots[slot] != -1) {
+            return slots[slot];
+        }
+
+        if ((size + 1) * length > contexts.length) {
+            contexts = Arrays.copyOf(contexts, contexts.length * 2);
+        }
+        System.arraycopy(history, end - length, contexts, size * length, length);
+        slots[slot] = size;
+        size++;
+        if (size * 2 > slots.length) {
+            grow();
+        }
+        return size - 1;
+    }
+
+    // Gets the slice at the given position of a context.
+    public int getSlice(int id, int index) {
+        return contexts[id * length + index];
+    }
+
+    // Approximate memory used by the table in bytes.
+    public long getMemoryUsage() {
+        return 4L * (contexts.length + slots.length);
+    }
+
+    private int hash(int[] values, int end) {
+        int hash = 1;
+        for (int i = end - length; i < end; i++) {
+            hash = 31 * hash + values[i];
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean matches(int id, int[] history, int end) {
+        int start = id * length;
+        for (int i = 0; i < length; i++) {
+            if (contexts[start + i] != history[end - length + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findSlot(int[] history, int end) {
+        int mask = slots.length - 1;
+        int slot = hash(history, end) & mask;
+        while (slots[slot] != -1 && !matches(slots[slot], history, end)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, -1);
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(contexts, (id + 1) * length) & mask;
+            while (slots[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package levelGenerators.SelvaDarveauGenerator;
 
-import java.io.File;
-import java.io.FileReader;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -11,109 +9,78 @@ import engine.core.MarioTimer;
 
 
 public class LevelGenerator implements MarioLevelGenerator {
-    private final String LEVELS = "levels/original/";
-    private final List<Slice> slices;
+    private static final String LEVELS = "levels/original/";
+    // Number of times a following slice is drawn before giving up and repeating the previous slice.
+    private static final int MAX_SAMPLES = 1000;
+    private final MarkovModel model;
+    private final SliceDictionary slices;
+    private final NGramModel transitions;
     private final List<Integer> starts;
     private final List<Integer> ends;
+    // Only set when the generated levels have to be reproducible.
+    private Random seededRandom;
 
     // Reads all files in the level folder.
     public LevelGenerator() {
-        slices = new ArrayList<>();
-        starts = new ArrayList<>();
-        ends = new ArrayList<>();
-
-        // Get all level files in the specified directory.
-        for (final File file: Objects.requireNonNull(new File(LEVELS).listFiles())) {
-            if (!file.isDirectory()) {
-                parse(file.getAbsolutePath());
-            }
-        }
+        this(LEVELS);
     }
 
-    // Reads a single file and splits it into slices that are added to the transition table.
-    private void parse(String filename) {
-        System.out.println("Reading " + filename);
-        FileReader reader;
-        List<char[]> columns = new ArrayList<>();
-        try {
-            int i;
-            int column = 0;
-            int row = 0;
-            boolean firstColumn = true;
-            reader = new FileReader(filename);
-
-            // Separate each column into arrays of chars.
-            while ((i = reader.read()) != -1) {
-                if ((char) i != '\r' && (char) i != '\u0000') {
-                    if ((char) i == '\n') {
-                        if (firstColumn) {
-                            firstColumn = false;
-                        }
-                        row++;
-                        column = 0;
-                    } else {
-                        if (firstColumn) {
-                            columns.add(new char[16]);
-                        }
-
-
-                        columns.get(column)[row] = (char) i;
-                        column++;
-                    }
-                }
-            }
-            reader.close();
-        } catch (Exception e) {
-            System.err.println(e);
-            System.err.println("Error with file " + filename);
-            return;
-        }
-
-        // Convert arrays of char into slices.
-        Slice lastSlice = null;
-        for (char[] c : columns) {
-            Slice tempSlice = null;
+    // Reads all level files in a folder and its sub folders (use "levels/" to train on the whole corpus).
+    public LevelGenerator(String levelsFolder) {
+        this(levelsFolder, 1);
+    }
 
-            for (Slice s : slices) {
-                if (s.toString().equals(String.valueOf(c))) {
-                    tempSlice = s;
-                    break;
-                }
-            }
+    // Same as above, but each slice depends on the last "order" slices instead of only the previous one.
+    public LevelGenerator(String levelsFolder, int order) {
+        this(MarkovTrainer.train(order, levelsFolder));
+    }
 
-            if (tempSlice == null) {
-                tempSlice = new Slice();
-                for (int i = 0; i < 16; ++i) {
+    // Uses an already trained model, for example one read with MarkovModel.load.
+    public LevelGenerator(MarkovModel model) {
+        this.model = model;
+        slices = model.getSlices();
+        transitions = model.getTransitions();
+        starts = model.findSlices('M');
+        ends = model.findSlices('F');
+        System.out.println("Loaded " + slices.size() + " slices");
+    }
 
-                    // Setting start/Mario slices.
-                    if (c[i] == 'M') {
-                        tempSlice.setMario(true);
-                        starts.add(slices.size());
-                    }
+    public MarkovModel getModel() {
+        return this.model;
+    }
 
-                    // Setting end/Flag slices.
-                    if (c[i] == 'F') {
-                        tempSlice.setFlag(true);
-                        ends.add(slices.size());
-                    }
+    // Makes the following generated levels reproducible.
+    public void setSeed(long seed) {
+        this.seededRandom = new Random(seed);
+    }
 
-                    // All other slices.
-                    tempSlice.replaceChar(c[i], i);
-                }
-                slices.add(tempSlice);
+    // Draws the slice placed after the history, skipping slices that were never followed by anything.
+    private Slice nextSlice(int[] history, int end, Random rand) {
+        for (int i = 0; i < MAX_SAMPLES; i++) {
+            int next = transitions.sample(history, end, rand);
+            if (next == -1) {
+                break;
             }
-
-            if (lastSlice != null) {
-                lastSlice.addNextSlice(tempSlice);
+            if (transitions.hasFollowers(next)) {
+                return slices.get(next);
             }
+        }
+        return slices.get(history[end - 1]);
+    }
 
-            lastSlice = tempSlice;
+    // Adds a slice at the end of the history, dropping the oldest one when it is full.
+    private int addToHistory(int[] history, int end, Slice slice) {
+        if (end == history.length) {
+            System.arraycopy(history, 1, history, 0, end - 1);
+            end--;
         }
+        history[end] = slice.getId();
+        return end + 1;
     }
 
     @Override
     public String getGeneratedLevel(MarioLevelModel model, MarioTimer timer) {
-        Random rand = new Random();
+        Random rand = seededRandom != null ? seededRandom : new Random();
         model.clearMap();
         Slice previousSlice;
         int prevHeight;
@@ -122,26 +89,20 @@ public class LevelGenerator implements MarioLevelGenerator {
         // Adds the starting slice.
         Slice currentSlice = slices.get(starts.get(rand.nextInt(starts.size())));
         addSlice(model, 0, currentSlice);
+        int[] history = new int[transitions.getOrder()];
+        int historySize = addToHistory(history, 0, currentSlice);
 
         // Add slices until the end is reached.
         while (x < model.getWidth() - 1) {
-            do {
-                previousSlice = currentSlice;
-                prevHeight = previousSlice.getGroundHeight();
-
-                if (currentSlice.getNextSlices() > 1) {
-                    currentSlice = currentSlice.getMarkovSlice(rand);
-                } else {
-                    currentSlice = previousSlice.getMarkovSlice(rand);
-                }
-
-               } while (currentSlice.getNextSlices() < 1);
+            previousSlice = currentSlice;
+            prevHeight = previousSlice.getGroundHeight();
+            currentSlice = nextSlice(history, historySize, rand);
 
             // Duplicate previous slice if it attempts to place another mario slice or an early flag.
             if (currentSlice.getMario() || currentSlice.getFlag()) {
                 currentSlice = previousSlice;
             }
-
+            historySize = addToHistory(history, historySize, currentSlice);
 
             // Place slices.
             for (int i = 0; i < 16; ++i) {
@@ -0,0 +1,159 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MarkovModel {
+    // "MKV1" at the start of saved model files.
+    private static final int MAGIC = 0x4D4B5631;
+
+    // A trained generator: the distinct slices and the transitions between them.
+    private final SliceDictionary slices;
+    private final NGramModel transitions;
+
+    public MarkovModel(int order) {
+        this(order, NGramModel.DEFAULT_MAX_CONTEXTS);
+    }
+
+    public MarkovModel(int order, int maxContexts) {
+        slices = new SliceDictionary();
+        transitions = new NGramModel(order, maxContexts);
+    }
+
+    public SliceDictionary getSlices() {
+        return this.slices;
+    }
+
+    public NGramModel getTransitions() {
+        return this.transitions;
+    }
+
+    // Adds the columns of one level to the model.
+    public void addLevel(List<char[]> columns) {
+        int[] sequence = new int[columns.size()];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = slices.intern(columns.get(i));
+        }
+        transitions.add(sequence, sequence.length);
+    }
+
+    // Adds everything another model learned to this one. Slices unknown to this model get new ids in the order
+    // the other model saw them, so merging partial models of consecutive files gives the same ids as reading all
+    // the files one after the other.
+    public MarkovModel merge(MarkovModel other) {
+        int[] remap = new int[other.slices.size()];
+        char[] column = new char[16];
+        for (int id = 0; id < remap.length; id++) {
+            Slice slice = other.slices.get(id);
+            for (int i = 0; i < 16; i++) {
+                column[i] = slice.getChar(i);
+            }
+            remap[id] = slices.intern(column);
+        }
+        transitions.merge(other.transitions, remap);
+        return this;
+    }
+
+    // Gets the ids of the slices containing a certain character, once for every time it appears in the slice.
+    public List<Integer> findSlices(char c) {
+        List<Integer> result = new ArrayList<>();
+        for (int id = 0; id < slices.size(); id++) {
+            for (int i = 0; i < 16; i++) {
+                if (slices.get(id).getChar(i) == c) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Writes the model in a compact binary file that can be read back with load.
+    public void save(String filename) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(filename))))) {
+            output.writeInt(MAGIC);
+            writeVarInt(output, transitions.getOrder());
+            writeVarInt(output, transitions.getMaxContexts());
+            writeVarInt(output, slices.size());
+            for (int id = 0; id < slices.size(); id++) {
+                for (int i = 0; i < 16; i++) {
+                    output.writeByte(slices.get(id).getChar(i));
+                }
+            }
+            for (int k = 1; k <= transitions.getOrder(); k++) {
+                ContextTable contexts = transitions.getContexts(k);
+                TransitionTable table = transitions.getTransitions(k);
+                writeVarInt(output, contexts.size());
+                for (int id = 0; id < contexts.size(); id++) {
+                    for (int i = 0; i < k; i++) {
+                        writeVarInt(output, contexts.getSlice(id, i));
+                    }
+                    writeVarInt(output, table.getRowSize(id));
+                    for (int column = 0; column < table.getRowSize(id); column++) {
+                        writeVarInt(output, table.getTarget(id, column));
+                        writeVarInt(output, table.getCountAt(id, column));
+                    }
+                }
+            }
+        }
+    }
+
+    // Reads a model written by save.
+    public static MarkovModel load(String filename) throws IOException {
+        ByteBuffer input = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filename)));
+        if (input.remaining() < 4 || input.getInt() != MAGIC) {
+            throw new IOException(filename + " is not a Markov model file");
+        }
+        int order = readVarInt(input);
+        MarkovModel model = new MarkovModel(order, readVarInt(input));
+
+        int sliceCount = readVarInt(input);
+        char[] column = new char[16];
+        for (int id = 0; id < sliceCount; id++) {
+            for (int i = 0; i < 16; i++) {
+                column[i] = (char) (input.get() & 0xFF);
+            }
+            model.slices.intern(column);
+        }
+        for (int k = 1; k <= order; k++) {
+            int contextCount = readVarInt(input);
+            int[] context = new int[k];
+            for (int id = 0; id < contextCount; id++) {
+                for (int i = 0; i < k; i++) {
+                    context[i] = readVarInt(input);
+                }
+                int rowSize = readVarInt(input);
+                for (int j = 0; j < rowSize; j++) {
+                    int next = readVarInt(input);
+                    model.transitions.add(k, context, k, next, readVarInt(input));
+                }
+            }
+        }
+        return model;
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer input) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = input.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,120 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import engine.core.CorpusLevel;
+import engine.core.LevelCorpus;
+
+public class MarkovTrainer {
+    // Finds all level files in some folders and their sub folders, sorted so training is repeatable.
+    public static List<Path> findLevelFiles(String... levelsFolders) {
+        List<Path> files = new ArrayList<>();
+        for (String folder : levelsFolders) {
+            try (Stream<Path> paths = Files.walk(Paths.get(folder))) {
+                files.addAll(paths.filter(Files::isRegularFile).filter(path -> path.toString().endsWith(".txt"))
+                        .sorted().collect(Collectors.toList()));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can't read the levels folder " + folder, e);
+            }
+        }
+        return files;
+    }
+
+    // Trains a model on the level files of some folders.
+    public static MarkovModel train(int order, String... levelsFolders) {
+        return train(findLevelFiles(levelsFolders), order, NGramModel.DEFAULT_MAX_CONTEXTS);
+    }
+
+    // Files are parsed in parallel, each worker counts the transitions of its files in a partial model and the
+    // partial models are merged in file order, so the result is the same as reading the files one by one.
+    public static MarkovModel train(List<Path> files, int order, int maxContexts) {
+        return files.parallelStream().collect(
+                () -> new MarkovModel(order, maxContexts),
+                (model, file) -> {
+                    List<char[]> columns = parse(file);
+                    if (columns != null) {
+                        model.addLevel(columns);
+                    }
+                },
+                MarkovModel::merge);
+    }
+
+    // Trains a model on some folders of a level corpus (all of it if no folder is given) without reading any file.
+    public static MarkovModel train(LevelCorpus corpus, int order, int maxContexts, String... folders) {
+        List<CorpusLevel> levels = new ArrayList<>();
+        if (folders.length == 0) {
+            corpus.forEach(levels::add);
+        }
+        for (String folder : folders) {
+            levels.addAll(corpus.getLevels(folder));
+        }
+        return levels.parallelStream().collect(
+                () -> new MarkovModel(order, maxContexts),
+                (model, level) -> {
+                    List<char[]> columns = getColumns(level);
+                    if (columns != null) {
+                        model.addLevel(columns);
+                    }
+                },
+                MarkovModel::merge);
+    }
+
+    // Splits a corpus level into columns of 16 tiles, or returns null if it is too high.
+    public static List<char[]> getColumns(CorpusLevel level) {
+        if (level.getHeight() > 16) {
+            System.err.println("Error with level " + level);
+            return null;
+        }
+        List<char[]> columns = new ArrayList<>(level.getWidth());
+        for (int x = 0; x < level.getWidth(); x++) {
+            columns.add(level.getColumn(x, new char[16]));
+        }
+        return columns;
+    }
+
+    // Reads a single file in one go and splits it into columns of 16 tiles, or returns null if it isn't a level.
+    public static List<char[]> parse(Path file) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.err.println("Error with file " + file);
+            return null;
+        }
+
+        List<char[]> columns = new ArrayList<>();
+        int column = 0;
+        int row = 0;
+        boolean firstColumn = true;
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            if (c == '\r' || c == '\u0000') {
+                continue;
+            }
+            if (c == '\n') {
+                firstColumn = false;
+                row++;
+                column = 0;
+            } else {
+                if (firstColumn) {
+                    columns.add(new char[16]);
+                }
+                if (row >= 16 || column >= columns.size()) {
+                    System.err.println("Error with file " + file);
+                    return null;
+                }
+                columns.get(column)[row] = c;
+                column++;
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,123 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.util.Random;
+
+public class NGramModel {
+    // Default limit of distinct contexts kept for each context length (the full corpus has about 200k
+    // contexts of length 4).
+    public static final int DEFAULT_MAX_CONTEXTS = 1 << 18;
+
+    // Transitions are counted for every context length from 1 to order, so that unseen long contexts
+    // can back off to shorter ones.
+    private final int order;
+    private final int maxContexts;
+    private final ContextTable[] contexts;
+    private final TransitionTable[] transitions;
+
+    public NGramModel(int order) {
+        this(order, DEFAULT_MAX_CONTEXTS);
+    }
+
+    // Once a context length reaches maxContexts, new contexts of that length are ignored and
+    // sampling backs off to shorter contexts for them, which bounds the memory of the model.
+    public NGramModel(int order, int maxContexts) {
+        if (order < 1) {
+            throw new IllegalArgumentException("The order of the model must be at least 1");
+        }
+        this.order = order;
+        this.maxContexts = maxContexts;
+        contexts = new ContextTable[order];
+        transitions = new TransitionTable[order];
+        for (int i = 0; i < order; i++) {
+            contexts[i] = new ContextTable(i + 1);
+            transitions[i] = new TransitionTable();
+        }
+    }
+
+    public int getOrder() {
+        return this.order;
+    }
+
+    public int getMaxContexts() {
+        return this.maxContexts;
+    }
+
+    public ContextTable getContexts(int length) {
+        return contexts[length - 1];
+    }
+
+    public TransitionTable getTransitions(int length) {
+        return transitions[length - 1];
+    }
+
+    // Adds all the transitions of a sequence of slice ids (one level) to the model.
+    public void add(int[] sequence, int length) {
+        for (int end = 1; end < length; end++) {
+            for (int k = 1; k <= order && k <= end; k++) {
+                add(k, sequence, end, sequence[end], 1);
+            }
+        }
+    }
+
+    // Adds the transitions of another model, its slice ids are translated using remap (other id -> id).
+    public void merge(NGramModel other, int[] remap) {
+        for (int k = 1; k <= Math.min(order, other.order); k++) {
+            ContextTable otherContexts = other.contexts[k - 1];
+            TransitionTable otherTransitions = other.transitions[k - 1];
+            int[] context = new int[k];
+            for (int id = 0; id < otherContexts.size(); id++) {
+                for (int i = 0; i < k; i++) {
+                    context[i] = remap[otherContexts.getSlice(id, i)];
+                }
+                for (int column = 0; column < otherTransitions.getRowSize(id); column++) {
+                    add(k, context, k, remap[otherTransitions.getTarget(id, column)], otherTransitions.getCountAt(id, column));
+                }
+            }
+        }
+    }
+
+    // Adds that "next" followed the k slices ending at history[end - 1] a certain number of times.
+    void add(int k, int[] history, int end, int next, int times) {
+        int context;
+        if (contexts[k - 1].size() < maxContexts) {
+            context = contexts[k - 1].intern(history, end);
+        } else {
+            context = contexts[k - 1].getId(history, end);
+        }
+        if (context != -1) {
+            transitions[k - 1].add(context, next, times);
+        }
+    }
+
+    // Checks if anything ever followed a single slice.
+    public boolean hasFollowers(int slice) {
+        int context = contexts[0].getId(new int[]{slice}, 1);
+        return context != -1 && transitions[0].getTotal(context) > 0;
+    }
+
+    // Samples the slice following history[0 .. end - 1] using the longest context that was seen in
+    // training, or -1 if even the last slice alone was never followed by anything.
+    public int sample(int[] history, int end, Random rng) {
+        for (int k = Math.min(order, end); k >= 1; k--) {
+            int context = contexts[k - 1].getId(history, end);
+            if (context != -1 && transitions[k - 1].getTotal(context) > 0) {
+                return transitions[k - 1].sample(context, rng);
+            }
+        }
+        return -1;
+    }
+
+    // Number of distinct contexts of a certain length.
+    public int getContextCount(int length) {
+        return contexts[length - 1].size();
+    }
+
+    // Approximate memory used by the model in bytes.
+    public long getMemoryUsage() {
+        long bytes = 0;
+        for (int i = 0; i < order; i++) {
+            bytes += contexts[i].getMemoryUsage() + transitions[i].getMemoryUsage();
+        }
+        return bytes;
+    }
+}
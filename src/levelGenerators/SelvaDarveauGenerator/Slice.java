@@ -1,13 +1,8 @@
 package levelGenerators.SelvaDarveauGenerator;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
-
 public class Slice {
-    // Keeping track of "following" slices.
-    private int totalFollow;
-    private final Map<Slice, Integer> followTimes;
+    // Position of the slice in the slice dictionary, transitions are stored by id.
+    private final int id;
 
     // Keeping track of specific aspects of slices (pieces, the flag, and the start).
     private final char[] pieces;
@@ -15,15 +10,17 @@ public class Slice {
     private boolean isMario;
 
     // Basic constructor for a slice.
-    public Slice() {
+    public Slice(int id) {
+        this.id = id;
         pieces = new char[16];
-        totalFollow = 0;
-        followTimes = new HashMap<>();
         isFlag = false;
         isMario = false;
     }
 
     // Getters and setters.
+    public int getId() {
+        return this.id;
+    }
     public void setFlag(boolean newFlag) {
         this.isFlag = newFlag;
     }
@@ -38,9 +35,6 @@ public class Slice {
     }
 
     public char getChar(int index) { return this.pieces[index]; }
-    public int getNextSlices() {
-        return totalFollow;
-    }
 
     // Converts a piece to its string counterpart.
     public String toString() {
@@ -52,30 +46,6 @@ public class Slice {
         this.pieces[index] = newChar;
     }
 
-    // Adds the "following" slice to the current slice.
-    public void addNextSlice(Slice slice) {
-        if (followTimes.containsKey(slice)) {
-            followTimes.put(slice, followTimes.get(slice) + 1);
-        } else {
-            followTimes.put(slice, 1);
-        }
-        totalFollow++;
-    }
-
-    // Gets a random slice using the Markov Chain.
-    public Slice getMarkovSlice(Random rng) {
-        int r = rng.nextInt(totalFollow);
-        int sum = 0;
-
-        for (Map.Entry<Slice, Integer> e : followTimes.entrySet()) {
-            sum += e.getValue();
-            if (r < sum) {
-                return e.getKey();
-            }
-        }
-        return null;
-    }
-
     // Checks if a given block is a solid tile that can be walked on.
     private boolean isSolid(char c) {
         return  c == 'X' || c == '#' || c == '%' || c == '@' || c == '?' || c == '!' || c == ']' ||
@@ -100,4 +70,4 @@ public class Slice {
 
 
 
-}
\ No newline at end of file
+}
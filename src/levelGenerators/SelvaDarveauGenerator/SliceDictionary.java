@@ -0,0 +1,54 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SliceDictionary {
+    // Every distinct column is stored once and referred to by its id (its index in the slices list).
+    private final Map<String, Integer> ids;
+    private final List<Slice> slices;
+
+    public SliceDictionary() {
+        ids = new HashMap<>();
+        slices = new ArrayList<>();
+    }
+
+    // Gets the id of a column, or -1 if the column was never added.
+    public int getId(String column) {
+        Integer id = ids.get(column);
+        return id == null ? -1 : id;
+    }
+
+    // Gets the id of a column, adding a new slice for it if it is unknown.
+    public int intern(char[] column) {
+        String key = String.valueOf(column);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+
+        Slice slice = new Slice(slices.size());
+        for (int i = 0; i < column.length; ++i) {
+            if (column[i] == 'M') {
+                slice.setMario(true);
+            }
+            if (column[i] == 'F') {
+                slice.setFlag(true);
+            }
+            slice.replaceChar(column[i], i);
+        }
+        slices.add(slice);
+        ids.put(key, slice.getId());
+        return slice.getId();
+    }
+
+    public Slice get(int id) {
+        return slices.get(id);
+    }
+
+    public int size() {
+        return slices.size();
+    }
+}
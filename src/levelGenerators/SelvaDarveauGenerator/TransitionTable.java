@@ -0,0 +1,212 @@
+package levelGenerators.SelvaDarveauGenerator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TransitionTable {
+    // Sparse transition matrix: for each slice id a row of following slice ids and how often they followed.
+    private int[][] targets;
+    private int[][] counts;
+    private int[] rowSizes;
+    private long[] rowTotals;
+
+    // Position of every (from, to) pair inside its row, stored in an open addressing table.
+    private long[] edgeKeys;
+    private int[] edgeColumns;
+    private int edges;
+
+    // Alias tables (Walker/Vose) for each row, rebuilt the next time a row is sampled after it changed.
+    private double[][] aliasProbabilities;
+    private int[][] aliases;
+    private boolean[] dirty;
+
+    public TransitionTable() {
+        targets = new int[16][];
+        counts = new int[16][];
+        rowSizes = new int[16];
+        rowTotals = new long[16];
+        aliasProbabilities = new double[16][];
+        aliases = new int[16][];
+        dirty = new boolean[16];
+        edgeKeys = new long[64];
+        edgeColumns = new int[64];
+        Arrays.fill(edgeKeys, -1);
+    }
+
+    // Records that slice "to" followed slice "from".
+    public void add(int from, int to) {
+        add(from, to, 1);
+    }
+
+    // Records that slice "to" followed slice "from" a certain number of times.
+    public void add(int from, int to, int times) {
+        ensureRow(from);
+        long key = ((long) from << 32) | (to & 0xFFFFFFFFL);
+        int slot = findSlot(key);
+        int column;
+        if (edgeKeys[slot] == key) {
+            column = edgeColumns[slot];
+        } else {
+            column = rowSizes[from];
+            if (targets[from] == null) {
+                targets[from] = new int[1];
+                counts[from] = new int[1];
+            } else if (column == targets[from].length) {
+                targets[from] = Arrays.copyOf(targets[from], column * 2);
+                counts[from] = Arrays.copyOf(counts[from], column * 2);
+            }
+            targets[from][column] = to;
+            rowSizes[from]++;
+            edgeKeys[slot] = key;
+            edgeColumns[slot] = column;
+            edges++;
+            if (edges * 2 > edgeKeys.length) {
+                growEdges();
+            }
+        }
+        counts[from][column] += times;
+        rowTotals[from] += times;
+        dirty[from] = true;
+    }
+
+    // Gets how many times any slice followed the given slice.
+    public long getTotal(int from) {
+        return from < rowTotals.length ? rowTotals[from] : 0;
+    }
+
+    // Gets how many different slices followed the given slice.
+    public int getRowSize(int from) {
+        return from < rowSizes.length ? rowSizes[from] : 0;
+    }
+
+    // Gets the slice at a certain column of a row (0 to getRowSize(from) - 1).
+    public int getTarget(int from, int column) {
+        return targets[from][column];
+    }
+
+    // Gets how many times the slice at a certain column of a row followed "from".
+    public int getCountAt(int from, int column) {
+        return counts[from][column];
+    }
+
+    // Gets how many times "to" followed "from".
+    public int getCount(int from, int to) {
+        if (from >= rowSizes.length) {
+            return 0;
+        }
+        int slot = findSlot(((long) from << 32) | (to & 0xFFFFFFFFL));
+        return edgeKeys[slot] == -1 ? 0 : counts[from][edgeColumns[slot]];
+    }
+
+    // Gets a random following slice in constant time, or -1 if nothing ever followed the given slice.
+    public int sample(int from, Random rng) {
+        if (getTotal(from) == 0) {
+            return -1;
+        }
+        if (dirty[from]) {
+            buildAlias(from);
+        }
+        int column = rng.nextInt(rowSizes[from]);
+        if (rng.nextDouble() < aliasProbabilities[from][column]) {
+            return targets[from][column];
+        }
+        return targets[from][aliases[from][column]];
+    }
+
+    // Approximate memory used by the table in bytes.
+    public long getMemoryUsage() {
+        long bytes = 8L * edgeKeys.length + 4L * edgeColumns.length + 29L * rowSizes.length;
+        for (int i = 0; i < rowSizes.length; i++) {
+            if (targets[i] != null) {
+                bytes += 8L * targets[i].length;
+            }
+            if (aliases[i] != null) {
+                bytes += 12L * aliases[i].length;
+            }
+        }
+        return bytes;
+    }
+
+    // Vose's alias method: splits the row into equal sized buckets each holding at most two outcomes.
+    private void buildAlias(int from) {
+        int size = rowSizes[from];
+        double[] probabilities = new double[size];
+        int[] alias = new int[size];
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallSize = 0;
+        int largeSize = 0;
+
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (double) counts[from][i] * size / rowTotals[from];
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probabilities[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Whatever is left only differs from 1 by rounding errors.
+        while (largeSize > 0) {
+            probabilities[large[--largeSize]] = 1;
+        }
+        while (smallSize > 0) {
+            probabilities[small[--smallSize]] = 1;
+        }
+
+        aliasProbabilities[from] = probabilities;
+        aliases[from] = alias;
+        dirty[from] = false;
+    }
+
+    private void ensureRow(int from) {
+        if (from < rowSizes.length) {
+            return;
+        }
+        int length = Math.max(from + 1, rowSizes.length * 2);
+        targets = Arrays.copyOf(targets, length);
+        counts = Arrays.copyOf(counts, length);
+        rowSizes = Arrays.copyOf(rowSizes, length);
+        rowTotals = Arrays.copyOf(rowTotals, length);
+        aliasProbabilities = Arrays.copyOf(aliasProbabilities, length);
+        aliases = Arrays.copyOf(aliases, length);
+        dirty = Arrays.copyOf(dirty, length);
+    }
+
+    private int findSlot(long key) {
+        int mask = edgeKeys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (edgeKeys[slot] != -1 && edgeKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growEdges() {
+        long[] oldKeys = edgeKeys;
+        int[] oldColumns = edgeColumns;
+        edgeKeys = new long[oldKeys.length * 2];
+        edgeColumns = new int[oldKeys.length * 2];
+        Arrays.fill(edgeKeys, -1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != -1) {
+                int slot = findSlot(oldKeys[i]);
+                edgeKeys[slot] = oldKeys[i];
+                edgeColumns[slot] = oldColumns[i];
+            }
+        }
+    }
+}
@@ -31,6 +31,13 @@ public class LevelGenerator implements MarioLevelGenerator {
         this.difficulty = difficulty;
     }
 
+    // Seeded version so the same levels can be generated again.
+    public LevelGenerator(int type, int difficulty, long seed) {
+        random = new Random(seed);
+        this.type = type;
+        this.difficulty = difficulty;
+    }
+
     private int buildZone(MarioLevelModel model, int x, int maxLength) {
         int t = random.nextInt(totalOdds);
         int type = 0;
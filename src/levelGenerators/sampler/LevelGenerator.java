@@ -1,11 +1,11 @@
 package levelGenerators.sampler;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.List;
 import java.util.Random;
 
+import engine.core.CorpusLevel;
+import engine.core.LevelCorpus;
 import engine.core.MarioLevelGenerator;
 import engine.core.MarioLevelModel;
 import engine.core.MarioTimer;
@@ -13,6 +13,9 @@ import engine.core.MarioTimer;
 public class LevelGenerator implements MarioLevelGenerator {
     private int sampleWidth = 10;
     private String folderName = "levels/original/";
+    private LevelCorpus corpus;
+    private String corpusFolder;
+    private List<CorpusLevel> levels;
 
     private Random rnd;
 
@@ -29,14 +32,41 @@ public class LevelGenerator implements MarioLevelGenerator {
         this.folderName = sampleFolder;
     }
 
-    private String getRandomLevel() throws IOException {
-        File[] listOfFiles = new File(folderName).listFiles();
-        List<String> lines = Files.readAllLines(listOfFiles[rnd.nextInt(listOfFiles.length)].toPath());
-        String result = "";
-        for (int i = 0; i < lines.size(); i++) {
-            result += lines.get(i) + "\n";
+    /**
+     * Sample from a folder of a level corpus (for example one opened with LevelCorpus.open)
+     *
+     * @param corpus       the corpus that contains the levels
+     * @param corpusFolder the folder of the corpus to sample from (for example "original")
+     * @param sampleWidth  the width of each sampled chunk
+     */
+    public LevelGenerator(LevelCorpus corpus, String corpusFolder, int sampleWidth) {
+        this.sampleWidth = sampleWidth;
+        this.corpus = corpus;
+        this.corpusFolder = corpusFolder;
+    }
+
+    private CorpusLevel getRandomLevel() throws IOException {
+        if (this.levels == null) {
+            if (this.corpus == null) {
+                // the folder is only read once, every sample after that comes from memory
+                this.corpus = LevelCorpus.build(this.folderName);
+                this.corpusFolder = "";
+            }
+            this.levels = this.corpus.getLevels(this.corpusFolder);
+            if (this.levels.isEmpty()) {
+                throw new IOException("There are no levels to sample from");
+            }
+        }
+        return this.levels.get(rnd.nextInt(this.levels.size()));
+    }
+
+    private void copyColumns(MarioLevelModel model, CorpusLevel level, int x, int width) {
+        for (int y = 0; y < model.getHeight(); y++) {
+            int sourceY = Math.min(y, level.getHeight() - 1);
+            for (int i = 0; i < width; i++) {
+                model.setBlock(x + i, y, level.getTile(Math.min(x + i, level.getWidth() - 1), sourceY));
+            }
         }
-        return result;
     }
 
     @Override
@@ -45,7 +75,7 @@ public class LevelGenerator implements MarioLevelGenerator {
         model.clearMap();
         for (int i = 0; i < model.getWidth() / sampleWidth; i++) {
             try {
-                model.copyFromString(i * sampleWidth, 0, i * sampleWidth, 0, sampleWidth, model.getHeight(), this.getRandomLevel());
+                this.copyColumns(model, this.getRandomLevel(), i * sampleWidth, sampleWidth);
             } catch (IOException e) {
                 e.printStackTrace();
             }